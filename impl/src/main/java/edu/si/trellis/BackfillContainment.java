@@ -0,0 +1,23 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * Whether to copy the containment of every resource into the containment table at startup, to migrate from the
+ * materialized view that formerly served containment. This need be done only once.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BackfillContainment {
+
+    /**
+     * Default is not to backfill.
+     */
+    public static final String value = "false";
+}
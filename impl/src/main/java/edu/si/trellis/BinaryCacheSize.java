@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The most bytes of binary chunks to hold off-heap in a {@link ChunkCache}. 0 disables the cache.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinaryCacheSize {
+
+    /**
+     * Default is no cache.
+     */
+    public static final String value = "0";
+}
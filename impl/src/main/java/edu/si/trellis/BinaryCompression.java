@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * Whether the chunks of binaries are compressed, when their media type is not one that is already compressed.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinaryCompression {
+
+    /**
+     * Default is not to compress.
+     */
+    public static final String value = "false";
+}
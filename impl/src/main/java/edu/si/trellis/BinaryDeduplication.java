@@ -0,0 +1,23 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * Whether binaries are recorded as lists of content-addressed chunks, each stored once and shared among all binaries
+ * that contain it.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinaryDeduplication {
+
+    /**
+     * Default is not to deduplicate.
+     */
+    public static final String value = "false";
+}
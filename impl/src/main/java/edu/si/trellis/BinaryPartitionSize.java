@@ -0,0 +1,24 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The most bytes of chunks of a binary to store in one Cassandra partition. Larger binaries are spread across
+ * partitions, which keeps any one of them small enough to compact, repair and read efficiently. 0 stores each binary
+ * in one partition, as older versions did.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinaryPartitionSize {
+
+    /**
+     * Default is 64 MiB.
+     */
+    public static final String value = "67108864";
+}
@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The number of binary chunks to fetch ahead of a reader. {@code 0} fetches each chunk only when it is reached.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinaryReadAhead {
+
+    /**
+     * Default number of chunks to fetch ahead.
+     */
+    public static final String value = "4";
+}
@@ -0,0 +1,23 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The seconds an {@link OrphanedBinarySweeper} leaves a binary alone after it is written, so that a binary is not
+ * purged before the resource that references it is recorded.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinarySweepGracePeriod {
+
+    /**
+     * Default is one day.
+     */
+    public static final String value = "86400";
+}
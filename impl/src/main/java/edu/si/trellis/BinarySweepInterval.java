@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The seconds between sweeps for orphaned binaries by an {@link OrphanedBinarySweeper}. 0 disables sweeping.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinarySweepInterval {
+
+    /**
+     * Default is no sweeping.
+     */
+    public static final String value = "0";
+}
@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The number of token ranges an {@link OrphanedBinarySweeper} scans at once, and of binaries it purges at once.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinarySweepParallelism {
+
+    /**
+     * Default number of ranges scanned at once.
+     */
+    public static final String value = "4";
+}
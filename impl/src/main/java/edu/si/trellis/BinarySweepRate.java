@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The most orphaned binaries an {@link OrphanedBinarySweeper} purges per second.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinarySweepRate {
+
+    /**
+     * Default rate of purging.
+     */
+    public static final String value = "10";
+}
@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The number of binary chunks that may be in flight to Cassandra at once while recording a binary.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface BinaryWriteAhead {
+
+    /**
+     * Default number of chunks in flight.
+     */
+    public static final String value = "4";
+}
@@ -0,0 +1,74 @@
+package edu.si.trellis;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of reusable {@link ByteBuffer}s, grouped by capacity. A bounded number of idle buffers is retained for each
+ * capacity, and a bounded number of idle bytes in all; any released beyond those are left for garbage collection. A
+ * capacity with no idle buffers is forgotten, so that buffers of many different capacities cannot accumulate.
+ */
+class ByteBufferPool {
+
+    private final int maxIdle;
+
+    private final long maxIdleBytes;
+
+    private final AtomicLong idleBytes = new AtomicLong();
+
+    /**
+     * Each queue is changed only within {@link ConcurrentMap#compute} or {@link ConcurrentMap#computeIfPresent} for its
+     * capacity, which serializes changes to it.
+     */
+    private final ConcurrentMap<Integer, Deque<ByteBuffer>> idle = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxIdle the maximum number of idle buffers to retain for each capacity
+     * @param maxIdleBytes the maximum number of bytes of idle buffers to retain in all
+     */
+    ByteBufferPool(int maxIdle, long maxIdleBytes) {
+        this.maxIdle = maxIdle;
+        this.maxIdleBytes = maxIdleBytes;
+    }
+
+    /**
+     * @param capacity the capacity of buffer required
+     * @return a cleared buffer of exactly {@code capacity} bytes
+     */
+    ByteBuffer acquire(int capacity) {
+        ByteBuffer[] taken = new ByteBuffer[1];
+        idle.computeIfPresent(capacity, (c, buffers) -> {
+            taken[0] = buffers.poll();
+            return buffers.isEmpty() ? null : buffers;
+        });
+        ByteBuffer buffer = taken[0];
+        if (buffer == null) return ByteBuffer.allocate(capacity);
+        idleBytes.addAndGet(-capacity);
+        // https://github.com/trellis-ldp/trellis-cassandra/issues/51#issuecomment-474970424
+        @SuppressWarnings("cast")
+        Buffer cleared = ((Buffer) buffer).clear();
+        return (ByteBuffer) cleared;
+    }
+
+    /**
+     * @param buffer a buffer no longer in use, which must not be used again by the caller
+     */
+    void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        idle.compute(capacity, (c, buffers) -> {
+            if (buffers != null && buffers.size() >= maxIdle) return buffers;
+            if (idleBytes.addAndGet(capacity) > maxIdleBytes) {
+                idleBytes.addAndGet(-capacity);
+                return buffers;
+            }
+            Deque<ByteBuffer> retained = buffers == null ? new ArrayDeque<>(maxIdle) : buffers;
+            retained.offer(buffer);
+            return retained;
+        });
+    }
+}
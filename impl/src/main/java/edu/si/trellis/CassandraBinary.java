@@ -1,18 +1,26 @@
 package edu.si.trellis;
 
+import static java.util.Collections.emptyMap;
+import static java.util.Locale.ROOT;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
 import edu.si.trellis.query.binary.Read;
 import edu.si.trellis.query.binary.ReadRange;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.rdf.api.IRI;
+import org.reactivestreams.Publisher;
 import org.trellisldp.api.Binary;
 
 /**
@@ -29,6 +37,14 @@ public class CassandraBinary implements Binary {
 
     private final ReadRange readRange;
 
+    private final Long size;
+
+    private final Integer chunkCount;
+
+    private final Map<String, byte[]> digests;
+
+    private final int bucketSize;
+
     /**
      * @param id identifier for this {@link Binary}
      * @param read a {@link Read} query to use
@@ -36,26 +52,164 @@ public class CassandraBinary implements Binary {
      * @param chunkLength the length of chunk to use reading bits from Cassandra
      */
     public CassandraBinary(IRI id, Read read, ReadRange readRange, int chunkLength) {
-        this.id = id;
-        this.read = read;
-        this.readRange = readRange;
-        if (chunkLength < 1) throw new IllegalArgumentException("Chunk length < 1!");
-        this.chunkLength = chunkLength;
+        this(builder(id, read, readRange, chunkLength));
+    }
+
+    private CassandraBinary(Builder builder) {
+        this.id = builder.id;
+        this.read = builder.read;
+        this.readRange = builder.readRange;
+        if (builder.chunkLength < 1) throw new IllegalArgumentException("Chunk length < 1!");
+        this.chunkLength = builder.chunkLength;
+        this.size = builder.size;
+        this.chunkCount = builder.chunkCount;
+        this.digests = new HashMap<>();
+        builder.digests.forEach((algorithm, digest) -> this.digests.put(algorithm.toUpperCase(ROOT), digest.clone()));
+        if (builder.bucketSize < 0) throw new IllegalArgumentException("Bucket size < 0!");
+        this.bucketSize = builder.bucketSize;
+    }
+
+    /**
+     * @param id identifier for this {@link Binary}
+     * @param read a {@link Read} query to use
+     * @param readRange a {@link ReadRange} query to use
+     * @param chunkLength the length of chunk to use reading bits from Cassandra
+     * @return a {@link Builder} for a binary of which nothing more was recorded, until told otherwise
+     */
+    public static Builder builder(IRI id, Read read, ReadRange readRange, int chunkLength) {
+        return new Builder(id, read, readRange, chunkLength);
+    }
+
+    /**
+     * Builds a {@link CassandraBinary} from what was recorded of it. Binaries recorded by earlier versions may lack any
+     * of the optional properties.
+     */
+    public static final class Builder {
+
+        private final IRI id;
+
+        private final Read read;
+
+        private final ReadRange readRange;
+
+        private final int chunkLength;
+
+        private Long size;
+
+        private Integer chunkCount;
+
+        private Map<String, byte[]> digests = emptyMap();
+
+        private int bucketSize;
+
+        private Builder(IRI id, Read read, ReadRange readRange, int chunkLength) {
+            this.id = id;
+            this.read = read;
+            this.readRange = readRange;
+            this.chunkLength = chunkLength;
+        }
+
+        /**
+         * @param size the length of this binary in bytes
+         * @return this builder
+         */
+        public Builder size(long size) {
+            this.size = size;
+            return this;
+        }
+
+        /**
+         * @param chunkCount how many chunks this binary comprises
+         * @return this builder
+         */
+        public Builder chunkCount(int chunkCount) {
+            this.chunkCount = chunkCount;
+            return this;
+        }
+
+        /**
+         * @param digests the digests of this binary that were recorded, by algorithm
+         * @return this builder
+         */
+        public Builder digests(Map<String, byte[]> digests) {
+            this.digests = digests;
+            return this;
+        }
+
+        /**
+         * @param bucketSize how many chunks make up each bucket of this binary, or 0 if it is stored in one partition
+         * @return this builder
+         */
+        public Builder bucketSize(int bucketSize) {
+            this.bucketSize = bucketSize;
+            return this;
+        }
+
+        /**
+         * @return the {@link CassandraBinary} built
+         */
+        public CassandraBinary build() {
+            return new CassandraBinary(this);
+        }
+    }
+
+    /**
+     * @return the length of this binary in bytes, if it was recorded
+     */
+    public Optional<Long> getSize() {
+        return Optional.ofNullable(size);
+    }
+
+    /**
+     * @param algorithm the name of a digest algorithm, e.g. {@code SHA-256}
+     * @return the digest of this binary under that algorithm, if it was recorded with the binary
+     */
+    public Optional<byte[]> getDigest(String algorithm) {
+        return Optional.ofNullable(digests.get(algorithm.toUpperCase(ROOT))).map(byte[]::clone);
     }
 
     @Override
     public CompletionStage<InputStream> getContent() {
-        return completedFuture(read.execute(id));
+        // without a recorded chunk count, we must look up which chunks there are
+        return completedFuture(chunkCount == null ? read.execute(id) : read.execute(id, chunkCount, bucketSize));
+    }
+
+    /**
+     * An alternative to {@link #getContent()} that never blocks: chunks are fetched only as a subscriber demands them,
+     * each delivered as it was read, uncompressed.
+     * 
+     * @return a {@link Publisher} of the content of this binary, chunk by chunk
+     */
+    public Publisher<ByteBuffer> getContentPublisher() {
+        return chunkCount == null ? read.publish(id) : read.publish(id, chunkCount, bucketSize);
     }
 
     @Override
     public CompletionStage<InputStream> getContent(int from, int to) {
-        int firstChunk = from / chunkLength;
-        int lastChunk = to / chunkLength;
-        int chunkStreamStart = from % chunkLength;
-        int rangeSize = to - from + 1; // +1 because range is inclusive
-        InputStream retrieve = readRange.execute(id, firstChunk, lastChunk);
-        // skip to fulfill lower end of range
+        return getContent((long) from, (long) to);
+    }
+
+    /**
+     * Like {@link #getContent(int, int)}, but addresses binaries of any size.
+     * 
+     * @param from the index of the first byte to read
+     * @param requestedTo the index of the last byte to read, inclusive
+     * @return the bytes of this binary in that range, which is truncated at the end of this binary
+     */
+    public CompletionStage<InputStream> getContent(long from, long requestedTo) {
+        // a recorded size lets us avoid asking for chunks past the end of this binary
+        long to = size == null ? requestedTo : Math.min(requestedTo, size - 1);
+        if (to < from || from / chunkLength > Integer.MAX_VALUE)
+            return completedFuture(new ByteArrayInputStream(new byte[0]));
+        int firstChunk = (int) (from / chunkLength);
+        // no binary has more chunks than there are chunk indexes
+        int lastChunk = (int) Math.min(to / chunkLength, Integer.MAX_VALUE);
+        long chunkStreamStart = from % chunkLength;
+        long rangeSize = to - from + 1; // +1 because range is inclusive
+        // without a recorded chunk count, we must look up which chunks in the range there are
+        InputStream retrieve = chunkCount == null ? readRange.execute(id, firstChunk, lastChunk)
+                        : readRange.execute(id, firstChunk, lastChunk, chunkCount, bucketSize);
+        // skip to fulfill lower end of range, which moves within the first chunk's buffer without reading
         try {
             retrieve.skip(chunkStreamStart);
         } catch (IOException e) {
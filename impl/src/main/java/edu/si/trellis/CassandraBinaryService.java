@@ -1,18 +1,36 @@
 package edu.si.trellis;
 
+import static java.util.concurrent.CompletableFuture.allOf;
 import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.utils.Bytes;
+
 import edu.si.trellis.query.binary.*;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 
-import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.rdf.api.IRI;
 import org.slf4j.Logger;
 import org.trellisldp.api.*;
@@ -25,91 +43,317 @@ public class CassandraBinaryService implements BinaryService {
 
     private static final Logger log = getLogger(CassandraBinaryService.class);
 
-    @SuppressWarnings("boxing")
-    private static final CompletableFuture<Long> DONE = completedFuture(-1L);
+    private static final CompletableFuture<Void> DONE = completedFuture(null);
+
+    private static final int IDLE_UPLOADS = 4;
+
+    private static final long IDLE_BUFFER_BYTES = 64L * 1024 * 1024;
+
+    private static final String CHUNK_DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Digest algorithms computed over every binary as it is recorded.
+     */
+    static final String[] BINARY_DIGEST_ALGORITHMS = { "SHA-256", "MD5" };
 
     // package-private for testing
     static final String CASSANDRA_CHUNK_HEADER_NAME = "Cassandra-Chunk-Size";
 
     private final IdentifierService idService;
 
-    private final int defaultChunkLength;
+    private final ChunkSizePolicy chunkSizes;
+
+    private final int writeAhead;
+
+    private final boolean deduplicate;
+
+    private final boolean compression;
+
+    private final long partitionSize;
+
+    private final ByteBufferPool chunkBuffers;
 
     private final GetChunkSize get;
 
     private final Insert insert;
 
+    private final InsertMetadata insertMetadata;
+
+    private final InsertDigest insertDigest;
+
+    private final InsertSharedChunk insertSharedChunk;
+
+    private final ReferenceSharedChunk referenceSharedChunk;
+
+    private final GetDigests getDigests;
+
+    private final DeleteSharedChunk deleteSharedChunk;
+
     private final Delete delete;
 
     private final Read read;
 
     private final ReadRange readRange;
 
+    private final ChunkCache cache;
+
     /**
      * @param idService {@link IdentifierService} to use for binaries
-     * @param chunkLength the maximum size of any chunk in this service
+     * @param chunkSizes the {@link ChunkSizePolicy} that chooses the size of chunk for binaries that do not request one
+     * @param writeAhead the number of chunks that may be in flight to Cassandra at once for any one binary
+     * @param deduplicate whether to record binaries as lists of shared, content-addressed chunks
+     * @param compression whether to compress chunks of binaries with media types that are not already compressed
+     * @param partitionSize the most bytes of chunks of a binary to store in one partition, or 0 to store each binary
+     *            in one partition
      * @param get a {@link GetChunkSize} query to use
      * @param insert a {@link Insert} query to use
+     * @param insertMetadata a {@link InsertMetadata} query to use
+     * @param insertDigest a {@link InsertDigest} query to use
+     * @param insertSharedChunk a {@link InsertSharedChunk} query to use
+     * @param referenceSharedChunk a {@link ReferenceSharedChunk} query to use
+     * @param getDigests a {@link GetDigests} query to use
+     * @param deleteSharedChunk a {@link DeleteSharedChunk} query to use
      * @param delete a {@link Delete} query to use
      * @param read a {@link Read} query to use
      * @param readRange a {@link ReadRange} query to use
+     * @param cache the {@link ChunkCache} used by {@code read} and {@code readRange}
      */
     @Inject
-    public CassandraBinaryService(IdentifierService idService, @DefaultChunkSize int chunkLength, GetChunkSize get,
-                    Insert insert, Delete delete, Read read, ReadRange readRange) {
+    public CassandraBinaryService(IdentifierService idService, ChunkSizePolicy chunkSizes,
+                    @BinaryWriteAhead int writeAhead, @BinaryDeduplication boolean deduplicate,
+                    @BinaryCompression boolean compression, @BinaryPartitionSize long partitionSize,
+                    GetChunkSize get, Insert insert,
+                    InsertMetadata insertMetadata, InsertDigest insertDigest, InsertSharedChunk insertSharedChunk,
+                    ReferenceSharedChunk referenceSharedChunk, GetDigests getDigests,
+                    DeleteSharedChunk deleteSharedChunk, Delete delete, Read read, ReadRange readRange,
+                    ChunkCache cache) {
         this.idService = idService;
-        this.defaultChunkLength = chunkLength;
-        log.info("Using configured default chunk length: {}", chunkLength);
+        this.chunkSizes = chunkSizes;
+        if (writeAhead < 1) throw new IllegalArgumentException("Write-ahead < 1!");
+        this.writeAhead = writeAhead;
+        log.info("Using configured binary write-ahead: {}", writeAhead);
+        this.deduplicate = deduplicate;
+        log.info("Using configured binary deduplication: {}", deduplicate);
+        this.compression = compression;
+        log.info("Using configured binary compression: {}", compression);
+        if (partitionSize < 0) throw new IllegalArgumentException("Partition size < 0!");
+        this.partitionSize = partitionSize;
+        log.info("Using configured binary partition size: {}", partitionSize);
+        // enough idle buffers for a few uploads at full write-ahead, within a bound on the heap they may hold
+        this.chunkBuffers = new ByteBufferPool(IDLE_UPLOADS * (writeAhead + 1), IDLE_BUFFER_BYTES);
         this.get = get;
         this.insert = insert;
+        this.insertMetadata = insertMetadata;
+        this.insertDigest = insertDigest;
+        this.insertSharedChunk = insertSharedChunk;
+        this.referenceSharedChunk = referenceSharedChunk;
+        this.getDigests = getDigests;
+        this.deleteSharedChunk = deleteSharedChunk;
         this.delete = delete;
         this.read = read;
         this.readRange = readRange;
+        this.cache = cache;
     }
 
     @Override
     public CompletableFuture<Binary> get(IRI id) {
         log.debug("Retrieving binary content from: {}", id);
-        return get.execute(id).thenApply(r -> new CassandraBinary(id, read, readRange, r.getInt("chunkSize")));
+        return get.execute(id).thenApply(r -> binary(id, r));
+    }
+
+    /**
+     * Retrieves a digest recorded with a binary, which requires reading only one row and none of the content of the
+     * binary.
+     *
+     * @param id the {@link IRI} of a binary
+     * @param algorithm the name of a digest algorithm, e.g. {@code SHA-256}
+     * @return the digest of that binary under that algorithm, if one was recorded with the binary
+     */
+    public CompletableFuture<Optional<byte[]>> getDigest(IRI id, String algorithm) {
+        return get.execute(id).thenApply(r -> binary(id, r).getDigest(algorithm));
+    }
+
+    private CassandraBinary binary(IRI id, Row r) {
+        // the chunks of a bucketed binary can be found only by counting them, so it is readable only once complete
+        if (!r.isNull("bucketSize") && r.isNull("chunkCount"))
+            throw new RuntimeTrellisException("Binary not found under IRI: " + id.getIRIString() + " !");
+        Map<String, byte[]> digests = new HashMap<>();
+        r.getMap("digests", String.class, ByteBuffer.class)
+                        .forEach((algorithm, digest) -> digests.put(algorithm, Bytes.getArray(digest)));
+        CassandraBinary.Builder binary = CassandraBinary.builder(id, read, readRange, r.getInt("chunkSize"))
+                        .digests(digests);
+        // binaries recorded by earlier versions lack these
+        if (!r.isNull("totalSize")) binary.size(r.getLong("totalSize"));
+        if (!r.isNull("chunkCount")) binary.chunkCount(r.getInt("chunkCount"));
+        if (!r.isNull("bucketSize")) binary.bucketSize(r.getInt("bucketSize"));
+        return binary.build();
     }
 
     @Override
     public CompletableFuture<Void> setContent(BinaryMetadata meta, InputStream stream) {
         log.debug("Recording binary content under: {}", meta.getIdentifier());
         final int chunkSize;
-        if (meta.getHints() == null) chunkSize = defaultChunkLength;
+        if (meta.getHints() == null) chunkSize = chunkSizes.defaultChunkSize();
         else {
             List<String> headers = meta.getHints().get(CASSANDRA_CHUNK_HEADER_NAME);
-            if (headers == null) chunkSize = defaultChunkLength;
+            if (headers == null) chunkSize = chunkSizes.chunkSize(meta.getHints());
             else if (headers.size() > 1)
                 throw new RuntimeTrellisException("Too many " + CASSANDRA_CHUNK_HEADER_NAME + " headers!");
-            else chunkSize = Integer.parseInt(headers.get(0));
+            else chunkSize = chunkSizes.bounded(Long.parseLong(headers.get(0)));
         }
-        return setChunk(meta, stream, new AtomicInteger(), chunkSize)
-                        .thenAccept(l -> log.debug("Recorded binary content under: {}", meta.getIdentifier()));
+        IRI id = meta.getIdentifier();
+        log.debug("Using chunk size {} for binary content under: {}", chunkSize, id);
+        boolean compress = compression && ChunkCompressor.compressible(meta.getMimeType());
+        // before and after, lest a concurrent reader cache a chunk that is being replaced
+        cache.invalidate(id);
+        return supplyAsync(() -> setChunks(id, stream, chunkSize, compress), insert).thenCompose(identity())
+                        .whenComplete((dummy, e) -> cache.invalidate(id))
+                        .thenAccept(dummy -> log.debug("Recorded binary content under: {}", id));
     }
 
-    @SuppressWarnings("resource")
-    private CompletableFuture<Long> setChunk(BinaryMetadata meta, InputStream data, AtomicInteger chunkIndex,
-                    int chunkLength) {
-        IRI id = meta.getIdentifier();
-        log.debug("Recording chunk {} of binary content under: {}", chunkIndex.get(), id);
-
-        try (NoopCloseCountingInputStream countingChunk = new NoopCloseCountingInputStream(
-                        new BoundedInputStream(data, chunkLength))) {
-            @SuppressWarnings("cast")
-            // upcast to match this object with InputStreamCodec
-            InputStream chunk = (InputStream) countingChunk;
-            return insert.execute(id, chunkLength, chunkIndex.getAndIncrement(), chunk)
-                            .thenComposeAsync(dummy -> countingChunk.getByteCount() == chunkLength
-                                            ? setChunk(meta, data, chunkIndex, chunkLength)
-                                            : DONE, insert);
+    /**
+     * Reads chunks from {@code data} into pooled buffers and records them, keeping up to {@link #writeAhead} chunk
+     * insertions in flight at once, compressing each if {@code compress}. Each buffer returns to the pool when its
+     * insertion completes, or at once if the chunk is not inserted. Chunks are spread across buckets of no more than
+     * {@link #partitionSize} bytes, unless that is 0. If any chunk fails to be read or recorded, no more are read, any
+     * that were recorded are purged, and the returned future fails with the cause of the first failure. Otherwise, the
+     * size and chunk count of the binary are recorded after all of its chunks.
+     */
+    private CompletableFuture<Void> setChunks(IRI id, InputStream data, int chunkLength, boolean compress) {
+        Semaphore window = new Semaphore(writeAhead);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        MessageDigest[] binaryDigests = binaryDigests();
+        int bucketSize = partitionSize == 0 ? 0
+                        : (int) Math.min(Integer.MAX_VALUE, Math.max(1, partitionSize / chunkLength));
+        long size = 0;
+        int chunkIndex = 0;
+        try (ChunkCompressor compressor = compress ? new ChunkCompressor(chunkBuffers) : null) {
+            int length;
+            do {
+                // the buffer and permit held here pass to the write of the chunk, and are released here otherwise
+                ByteBuffer held = chunkBuffers.acquire(chunkLength);
+                boolean permitted = false;
+                try {
+                    ByteBuffer chunk = held;
+                    length = IOUtils.read(data, chunk.array(), chunk.arrayOffset(), chunkLength);
+                    ((Buffer) chunk).limit(length);
+                    window.acquire();
+                    permitted = true;
+                    // chunk indexes are ints, so a binary of more chunks must be written with larger ones
+                    if (chunkIndex < 0) failure.compareAndSet(null, new RuntimeTrellisException(
+                                    "Too many chunks of size " + chunkLength + " for binary content under: " + id));
+                    if (failure.get() != null) break;
+                    log.debug("Recording chunk {} of binary content under: {}", chunkIndex, id);
+                    size += length;
+                    for (MessageDigest binaryDigest : binaryDigests)
+                        binaryDigest.update(chunk.duplicate());
+                    int index = chunkIndex++;
+                    // content is addressed by its digest before compression
+                    ByteBuffer digest = deduplicate ? digest(chunk) : null;
+                    ByteBuffer stored = compress ? compressor.compress(chunk) : chunk;
+                    boolean compressed = stored != chunk;
+                    if (compressed) {
+                        chunkBuffers.release(chunk);
+                        held = stored;
+                    }
+                    CompletableFuture<Void> write = deduplicate
+                                    ? insertShared(id, chunkLength, bucketSize, index, digest, stored, compressed)
+                                    : insert.execute(id, chunkLength, bucketSize, index, stored, compressed);
+                    held = null;
+                    permitted = false;
+                    writes.add(write.whenComplete((dummy, e) -> {
+                        if (e != null) failure.compareAndSet(null, e);
+                        chunkBuffers.release(stored);
+                        window.release();
+                    }));
+                } finally {
+                    if (held != null) chunkBuffers.release(held);
+                    if (permitted) window.release();
+                }
+            } while (length == chunkLength);
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        }
+        long binarySize = size;
+        int chunkCount = chunkIndex;
+        Map<String, ByteBuffer> digests = new HashMap<>();
+        for (MessageDigest binaryDigest : binaryDigests)
+            digests.put(binaryDigest.getAlgorithm(), ByteBuffer.wrap(binaryDigest.digest()));
+        return allOf(writes.toArray(new CompletableFuture<?>[0])).handle((dummy, e) -> failure.get())
+                        .thenCompose(cause -> cause == null ? DONE : purgeAfter(id, cause))
+                        .thenCompose(dummy -> insertMetadata.execute(id, binarySize, chunkCount, digests));
+    }
+
+    private CompletableFuture<Void> purgeAfter(IRI id, Throwable cause) {
+        log.error("Failed to record binary content under: {}, purging any recorded chunks", id);
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        purgeContent(id).whenComplete((dummy, e) -> failed.completeExceptionally(cause));
+        return failed;
+    }
+
+    /**
+     * Records a chunk by its digest. The reference to it is counted first, so that no purge that sees the count drop
+     * to zero afterwards can be deleting content this binary needs. If this is the only reference, a purge may have
+     * just removed the last one and be about to delete the content as of a time before this reference, so the content
+     * is stored again, at a later time, which that deletion cannot remove. Otherwise the content is stored only if it
+     * is missing, since another reference is keeping it. The digest is recorded in the binary last, so that a reader
+     * never finds a digest without content.
+     */
+    private CompletableFuture<Void> insertShared(IRI id, int chunkLength, int bucketSize, int chunkIndex,
+                    ByteBuffer digest, ByteBuffer chunk, boolean compressed) {
+        return referenceSharedChunk.execute(digest, 1)
+                        .thenCompose(refs -> refs > 1 ? insertSharedChunk.executeIfAbsent(digest, chunk, compressed)
+                                        : insertSharedChunk.execute(digest, chunk, compressed))
+                        .thenCompose(dummy -> insertDigest.execute(id, chunkLength, bucketSize, chunkIndex, digest));
+    }
+
+    private static ByteBuffer digest(ByteBuffer chunk) {
+        MessageDigest digest = messageDigest(CHUNK_DIGEST_ALGORITHM);
+        digest.update(chunk.duplicate());
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    private static MessageDigest[] binaryDigests() {
+        MessageDigest[] digests = new MessageDigest[BINARY_DIGEST_ALGORITHMS.length];
+        for (int i = 0; i < digests.length; i++)
+            digests[i] = messageDigest(BINARY_DIGEST_ALGORITHMS[i]);
+        return digests;
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("Every Java platform must support " + algorithm + "!", e);
         }
     }
 
+    /**
+     * Deletes a binary. If it was deduplicated, its references to shared chunks are removed after the binary itself is
+     * deleted, so that a failed purge can only leave behind shared chunks, never a binary missing some of its content.
+     * The content of a shared chunk is deleted when its last reference is removed, as of a time before that removal, so
+     * that an upload that concurrently re-references the chunk and stores its content again wins. That ordering relies
+     * on the clocks of the clients of the cluster agreeing more closely than the time between those operations.
+     */
     @Override
     public CompletableFuture<Void> purgeContent(IRI identifier) {
-        return delete.execute(identifier);
+        return getDigests.execute(identifier)
+                        .thenCompose(digests -> delete.execute(identifier).thenCompose(dummy -> unreference(digests)))
+                        .whenComplete((dummy, e) -> cache.invalidate(identifier));
+    }
+
+    private CompletableFuture<Void> unreference(List<ByteBuffer> digests) {
+        return allOf(digests.stream().map(this::unreference).collect(toList()).toArray(new CompletableFuture<?>[0]));
+    }
+
+    private CompletableFuture<Void> unreference(ByteBuffer digest) {
+        long before = MILLISECONDS.toMicros(System.currentTimeMillis());
+        return referenceSharedChunk.execute(digest, -1)
+                        .thenCompose(refs -> refs > 0 ? DONE : deleteSharedChunk.execute(digest, before));
     }
 
     @Override
@@ -1,9 +1,12 @@
 package edu.si.trellis;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
 import edu.si.trellis.query.rdf.ImmutableRetrieve;
 import edu.si.trellis.query.rdf.MementoMutableRetrieve;
 
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.IRI;
@@ -19,17 +22,22 @@ class CassandraMemento extends CassandraResource {
     CassandraMemento(IRI id, IRI ixnModel, boolean hasAcl, IRI binaryIdentifier, String mimeType, IRI container,
                     Instant modified, ImmutableRetrieve immutable,
                     MementoMutableRetrieve mementoMutableRetrieve) {
-        super(id, ixnModel, hasAcl, binaryIdentifier, mimeType, container, modified, immutable, null, null);
+        super(id, ixnModel, hasAcl, binaryIdentifier, mimeType, container, modified, immutable, null, null, null);
         this.mementoMutableRetrieve = mementoMutableRetrieve;
     }
 
     @Override
-    protected Stream<Quad> mutableQuads() {
+    protected CompletableFuture<Stream<Quad>> mutableQuads() {
         return mementoMutableRetrieve.execute(getIdentifier(), getModified());
     }
 
     @Override
-    protected Stream<Quad> basicContainmentQuads() {
-        return Stream.empty();
+    protected CompletableFuture<Stream<Quad>> basicContainmentQuads() {
+        return completedFuture(Stream.empty());
+    }
+
+    @Override
+    public CompletableFuture<Long> getChildCount() {
+        return completedFuture(0L);
     }
 }
@@ -1,6 +1,6 @@
 package edu.si.trellis;
 
-import static java.util.stream.Stream.concat;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.trellisldp.api.BinaryMetadata.builder;
 import static org.trellisldp.vocabulary.LDP.Container;
@@ -9,17 +9,15 @@ import static org.trellisldp.vocabulary.LDP.PreferContainment;
 import static org.trellisldp.vocabulary.LDP.contains;
 import static org.trellisldp.vocabulary.LDP.getSuperclassOf;
 
-import com.datastax.driver.core.Row;
-
 import edu.si.trellis.query.rdf.BasicContainment;
+import edu.si.trellis.query.rdf.ChildCount;
 import edu.si.trellis.query.rdf.ImmutableRetrieve;
 import edu.si.trellis.query.rdf.MutableRetrieve;
 
 import java.time.Instant;
 import java.util.Optional;
-import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Quad;
@@ -47,11 +45,13 @@ class CassandraResource implements Resource {
 
     private final BasicContainment bcontainment;
 
+    private final ChildCount childCount;
+
     private static final RDF rdfFactory = TrellisUtils.getInstance();
 
     public CassandraResource(IRI id, IRI ixnModel, boolean hasAcl, IRI binaryIdentifier, String mimeType, IRI container,
                     Instant modified, ImmutableRetrieve immutable, MutableRetrieve mutable,
-                    BasicContainment bcontainment) {
+                    BasicContainment bcontainment, ChildCount childCount) {
         this.identifier = id;
         this.interactionModel = ixnModel;
         this.isContainer = Container.equals(getInteractionModel())
@@ -66,6 +66,7 @@ class CassandraResource implements Resource {
         this.mutable = mutable;
         this.immutable = immutable;
         this.bcontainment = bcontainment;
+        this.childCount = childCount;
     }
 
     @Override
@@ -101,35 +102,46 @@ class CassandraResource implements Resource {
         return Optional.ofNullable(binary);
     }
 
+    /**
+     * Retrieves the mutable, immutable and containment data of this resource at once, and streams each as soon as it
+     * arrives, in that order.
+     */
     @Override
     public Stream<Quad> stream() {
         log.trace("Retrieving quad stream for resource {}", getIdentifier());
-        Stream<Quad> quads = concat(mutableQuads(), immutableQuads());
-        if (isContainer) {
-            Stream<Quad> containmentQuads = basicContainmentQuads();
-            quads = concat(quads, containmentQuads);
-        }
-        return quads;
+        CompletableFuture<Stream<Quad>> mutableQuads = mutableQuads(), immutableQuads = immutableQuads(),
+                        containmentQuads = isContainer ? basicContainmentQuads() : completedFuture(Stream.empty());
+        return Stream.of(mutableQuads, immutableQuads, containmentQuads).flatMap(CompletableFuture::join);
     }
 
     /**
      * @return the quads stored via mutable data paths, either current or Memento
      */
-    protected Stream<Quad> mutableQuads() {
+    protected CompletableFuture<Stream<Quad>> mutableQuads() {
         return mutable.execute(getIdentifier());
     }
 
-    private Stream<Quad> immutableQuads() {
+    private CompletableFuture<Stream<Quad>> immutableQuads() {
         return immutable.execute(getIdentifier());
     }
 
-    protected Stream<Quad> basicContainmentQuads() {
-        Spliterator<Row> rows = bcontainment.execute(getIdentifier()).spliterator();
-        Stream<IRI> contained = StreamSupport.stream(rows, false).map(r -> r.get("contained", IRI.class));
-        return contained.distinct().map(c -> rdfFactory.createQuad(PreferContainment, getIdentifier(), contains, c))
-                        .peek(t -> log.trace("Built containment quad: {}", t));
+    protected CompletableFuture<Stream<Quad>> basicContainmentQuads() {
+        // each contained resource is listed once in its container's partition, so needs no deduplication
+        return bcontainment.execute(getIdentifier()).thenApply(contained -> contained
+                        .map(c -> rdfFactory.createQuad(PreferContainment, getIdentifier(), contains, c))
+                        .peek(t -> log.trace("Built containment quad: {}", t)));
     }
     
+    /**
+     * Answers without reading the children of this resource, from a count kept as children are created and deleted.
+     *
+     * @return how many children this resource has, which is 0 if it is not a container
+     * @see CassandraResourceService#reconcileChildCount(IRI)
+     */
+    public CompletableFuture<Long> getChildCount() {
+        return isContainer ? childCount.execute(getIdentifier()) : completedFuture(0L);
+    }
+
     /**
      * If there are mutable triples stored in the PreferContainment named graph, they will <i>not</i> be returned here.
      * Our assumption is that no user will intentionally use that URI as a name for a graph.
@@ -138,7 +150,7 @@ class CassandraResource implements Resource {
      */
     @Override
     public Stream<Quad> stream(IRI graphName) {
-        if (graphName.equals(PreferContainment)) return basicContainmentQuads();
+        if (graphName.equals(PreferContainment)) return basicContainmentQuads().join();
         return Resource.super.stream(graphName);
     }
 }
@@ -1,6 +1,7 @@
 package edu.si.trellis;
 
 import static java.time.Instant.now;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.UUID.randomUUID;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.trellisldp.api.Metadata.builder;
@@ -14,20 +15,23 @@ import static org.trellisldp.vocabulary.LDP.RDFSource;
 import com.datastax.driver.core.utils.UUIDs;
 import com.google.common.collect.ImmutableSet;
 
+import edu.si.trellis.query.rdf.AdjustChildCount;
 import edu.si.trellis.query.rdf.BasicContainment;
+import edu.si.trellis.query.rdf.ChildCount;
 import edu.si.trellis.query.rdf.Delete;
 import edu.si.trellis.query.rdf.Get;
 import edu.si.trellis.query.rdf.ImmutableInsert;
 import edu.si.trellis.query.rdf.ImmutableRetrieve;
 import edu.si.trellis.query.rdf.MutableInsert;
 import edu.si.trellis.query.rdf.MutableRetrieve;
-import edu.si.trellis.query.rdf.Touch;
 
 import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -64,7 +68,7 @@ public class CassandraResourceService extends CassandraBuildingService implement
 
     private final MutableInsert mutableInsert;
 
-    private final Touch touch;
+    private final TouchCoalescer touches;
 
     private final BasicContainment bcontainment;
 
@@ -72,6 +76,12 @@ public class CassandraResourceService extends CassandraBuildingService implement
 
     private final ImmutableRetrieve immutableRetrieve;
 
+    private final ChildCount childCount;
+
+    private final AdjustChildCount adjustChildCount;
+
+    private final ResourceCache cache;
+
     /**
      * Constructor.
      * 
@@ -79,24 +89,30 @@ public class CassandraResourceService extends CassandraBuildingService implement
      * @param get {@link Get} query to support retrieving content
      * @param immutableInsert {@link ImmutableInsert} query to support storing immutable data
      * @param mutableInsert {@link MutableInsert} query to support storing mutable data
-     * @param touch {@link Touch} query to support updating the value of {@link Resource#getModified()}
+     * @param touches {@link TouchCoalescer} to support updating the value of {@link Resource#getModified()}
      * @param mutableRetrieve {@link MutableRetrieve} to support retrieving content
      * @param immutableRetrieve {@link ImmutableRetrieve} to support retrieving content
      * @param bcontainment {@link BasicContainment} to support retrieving content
+     * @param childCount {@link ChildCount} to support counting the children of containers
+     * @param adjustChildCount {@link AdjustChildCount} to keep counts of children as they are created and deleted
+     * @param cache {@link ResourceCache} to hold retrieved resources
      */
     @Inject
     public CassandraResourceService(Delete delete, Get get, ImmutableInsert immutableInsert,
-                    MutableInsert mutableInsert, Touch touch, MutableRetrieve mutableRetrieve,
-                    ImmutableRetrieve immutableRetrieve, BasicContainment bcontainment) {
+                    MutableInsert mutableInsert, TouchCoalescer touches, MutableRetrieve mutableRetrieve,
+                    ImmutableRetrieve immutableRetrieve, BasicContainment bcontainment, ChildCount childCount,
+                    AdjustChildCount adjustChildCount, ResourceCache cache) {
         this.delete = delete;
         this.get = get;
         this.immutableInsert = immutableInsert;
         this.mutableInsert = mutableInsert;
-        this.touch = touch;
+        this.touches = touches;
         this.mutableRetrieve = mutableRetrieve;
         this.immutableRetrieve = immutableRetrieve;
         this.bcontainment = bcontainment;
-
+        this.childCount = childCount;
+        this.adjustChildCount = adjustChildCount;
+        this.cache = cache;
     }
 
     /**
@@ -121,6 +137,10 @@ public class CassandraResourceService extends CassandraBuildingService implement
 
     @Override
     public CompletionStage<? extends Resource> get(final IRI id) {
+        return cache.get(id, this::retrieve);
+    }
+
+    private CompletionStage<Resource> retrieve(IRI id) {
         return get.execute(id).thenApply(rows -> parse(rows, log, id));
     }
 
@@ -138,27 +158,52 @@ public class CassandraResourceService extends CassandraBuildingService implement
     @Override
     public CompletionStage<Void> create(Metadata meta, Dataset data) {
         log.debug("Creating {} with interaction model {}", meta.getIdentifier(), meta.getInteractionModel());
-        return write(meta, data);
+        // only creation adds a child, so that replacing a resource doesn't count it again
+        return invalidating(meta.getIdentifier(), insert(meta, data)
+                        .thenCompose(dummy -> adjustChildCount(meta.getContainer(), 1)));
     }
 
     @Override
     public CompletionStage<Void> replace(Metadata meta, Dataset data) {
         log.debug("Replacing {} with interaction model {}", meta.getIdentifier(), meta.getInteractionModel());
-        return write(meta, data);
+        return invalidating(meta.getIdentifier(), insert(meta, data));
     }
 
     @Override
     public CompletionStage<Void> delete(Metadata meta) {
         log.debug("Deleting {}", meta.getIdentifier());
-        return delete.execute(meta.getIdentifier());
+        IRI id = meta.getIdentifier();
+        return invalidating(id, delete.execute(id).thenCompose(container -> adjustChildCount(container, -1)));
     }
 
-    /*
-     * (non-Javadoc) TODO avoid read-modify-write?
-     */
     @Override
     public CompletionStage<Void> touch(IRI id) {
-        return touch.execute(now(), id);
+        return invalidating(id, touches.touch(id, now()));
+    }
+
+    /**
+     * Recounts the children of a container, which may have drifted from their recorded count, for example if a creation
+     * or deletion failed between recording the child and counting it. The recount reads every child of the container,
+     * and children created or deleted meanwhile may not be reflected.
+     *
+     * @param container the {@link IRI} of a container
+     * @return how many children the container has
+     */
+    public CompletionStage<Long> reconcileChildCount(IRI container) {
+        CompletableFuture<Long> recorded = childCount.execute(container);
+        return bcontainment.execute(container).thenApply(Stream::count).thenCombine(recorded, (counted, r) -> {
+            if (counted.longValue() == r.longValue()) return completedFuture(counted);
+            log.info("Reconciling count of children of {} from {} to {}", container, r, counted);
+            return adjustChildCount.execute(container, counted - r).thenApply(dummy -> counted);
+        }).thenCompose(reconciled -> reconciled);
+    }
+
+    /**
+     * The count of children is adjusted only once the change to the child has succeeded, so that a failed change leaves
+     * it as it was.
+     */
+    private CompletableFuture<Void> adjustChildCount(Optional<IRI> container, long delta) {
+        return container.map(c -> adjustChildCount.execute(c, delta)).orElse(completedFuture(null));
     }
 
     @Override
@@ -166,7 +211,7 @@ public class CassandraResourceService extends CassandraBuildingService implement
         return SUPPORTED_INTERACTION_MODELS;
     }
 
-    private CompletionStage<Void> write(Metadata meta, Dataset data) {
+    private CompletableFuture<Void> insert(Metadata meta, Dataset data) {
         IRI id = meta.getIdentifier();
         IRI ixnModel = meta.getInteractionModel();
         IRI container = meta.getContainer().orElse(null);
@@ -179,10 +224,18 @@ public class CassandraResourceService extends CassandraBuildingService implement
         return mutableInsert.execute(ixnModel, mimeType, container, data, now, binaryIdentifier, UUIDs.timeBased(), id);
     }
 
+    /**
+     * Invalidates a cached resource once a change to it is complete, whether or not it succeeded, and before the change
+     * is reported complete, so that a caller always retrieves the resource anew afterwards.
+     */
+    private CompletionStage<Void> invalidating(IRI id, CompletionStage<Void> change) {
+        return change.whenComplete((dummy, e) -> cache.invalidate(id));
+    }
+
     @Override
     Resource construct(IRI id, IRI ixnModel, boolean hasAcl, IRI binaryId, String mimeType, IRI container,
                     Instant modified) {
         return new CassandraResource(id, ixnModel, hasAcl, binaryId, mimeType, container, modified, immutableRetrieve,
-                        mutableRetrieve, bcontainment);
+                        mutableRetrieve, bcontainment, childCount);
     }
 }
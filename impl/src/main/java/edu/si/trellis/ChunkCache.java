@@ -0,0 +1,198 @@
+package edu.si.trellis;
+
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.google.common.cache.Cache;
+
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+
+/**
+ * A cache of binary chunks as they are stored, keyed by binary and chunk index. Cached chunks are copied into direct
+ * buffers, so that a large cache does not burden the heap, and the least recently used are evicted to keep the total
+ * size of cached chunks under a bound. With a bound of 0, nothing is cached. A chunk is cached only if its binary was
+ * not invalidated while it was being retrieved, so that a read overlapping a write cannot cache what was replaced.
+ */
+@Singleton
+public class ChunkCache {
+
+    private static final Logger log = getLogger(ChunkCache.class);
+
+    private static final int STRIPES = 64;
+
+    private final Cache<Key, Chunk> chunks;
+
+    /**
+     * Counts invalidations by stripe of identifiers, so that a retrieval overlapping an invalidation is not cached.
+     */
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    /**
+     * @param maxBytes the most bytes of chunks to cache
+     */
+    @Inject
+    public ChunkCache(@BinaryCacheSize long maxBytes) {
+        if (maxBytes < 0) throw new IllegalArgumentException("Cache size < 0!");
+        if (maxBytes == 0) this.chunks = null;
+        else this.chunks = newBuilder().maximumWeight(maxBytes)
+                        .weigher((Key key, Chunk chunk) -> chunk.content.capacity()).recordStats().build();
+        log.info("Using configured binary chunk cache size: {}", maxBytes);
+    }
+
+    /**
+     * @param id the {@link IRI} of a binary
+     * @param chunkIndex the index of a chunk of that binary
+     * @return the chunk, or {@code null} if it is not cached
+     */
+    public Chunk get(IRI id, int chunkIndex) {
+        return chunks == null ? null : chunks.getIfPresent(new Key(id, chunkIndex));
+    }
+
+    /**
+     * @param id the {@link IRI} of a binary
+     * @return a token for the state of that binary, to be taken before retrieving a chunk of it and given to
+     *         {@link #put(IRI, int, ByteBuffer, boolean, long)}
+     */
+    public long generation(IRI id) {
+        return invalidations.get(stripe(id.getIRIString()));
+    }
+
+    /**
+     * @param id the {@link IRI} of a binary
+     * @param chunkIndex the index of a chunk of that binary
+     * @param content the content of the chunk as stored, from its position to its limit
+     * @param compressed whether {@code content} is compressed
+     * @param generation the {@link #generation(IRI)} of the binary from before the chunk was retrieved
+     * @return the chunk, which is cached if the cache is enabled and the binary has not been invalidated since
+     *         {@code generation}
+     */
+    public Chunk put(IRI id, int chunkIndex, ByteBuffer content, boolean compressed, long generation) {
+        if (chunks == null) return uncached(content, compressed);
+        ByteBuffer copy = ByteBuffer.allocateDirect(content.remaining());
+        copy.put(content.duplicate());
+        ((Buffer) copy).flip();
+        Chunk chunk = new Chunk(copy.asReadOnlyBuffer(), compressed);
+        Key key = new Key(id, chunkIndex);
+        chunks.put(key, chunk);
+        // an invalidation since retrieval began may have been missed, or may yet remove nothing
+        if (invalidations.get(stripe(key.identifier)) != generation) chunks.invalidate(key);
+        return chunk;
+    }
+
+    /**
+     * @param content the content of a chunk as stored, from its position to its limit
+     * @param compressed whether {@code content} is compressed
+     * @return the chunk, which is not cached
+     */
+    public static Chunk uncached(ByteBuffer content, boolean compressed) {
+        return new Chunk(content, compressed);
+    }
+
+    /**
+     * Removes every cached chunk of a binary. This scans the cache, which holds few enough chunks for that to be cheap
+     * beside the write or purge that makes it necessary.
+     *
+     * @param id the {@link IRI} of a binary that is changing
+     */
+    public void invalidate(IRI id) {
+        if (chunks == null) return;
+        String identifier = id.getIRIString();
+        invalidations.incrementAndGet(stripe(identifier));
+        chunks.asMap().keySet().removeIf(key -> key.identifier.equals(identifier));
+    }
+
+    private static int stripe(String identifier) {
+        return (identifier.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    /**
+     * @return how many requests for a chunk were answered from this cache
+     */
+    public long hitCount() {
+        return chunks == null ? 0 : chunks.stats().hitCount();
+    }
+
+    /**
+     * @return how many requests for a chunk were not answered from this cache
+     */
+    public long missCount() {
+        return chunks == null ? 0 : chunks.stats().missCount();
+    }
+
+    /**
+     * @return how many chunks have been evicted from this cache to keep it within its bound
+     */
+    public long evictionCount() {
+        return chunks == null ? 0 : chunks.stats().evictionCount();
+    }
+
+    /**
+     * A chunk as stored, which may be compressed.
+     */
+    public static final class Chunk {
+
+        private final ByteBuffer content;
+
+        private final boolean compressed;
+
+        private Chunk(ByteBuffer content, boolean compressed) {
+            this.content = content;
+            this.compressed = compressed;
+        }
+
+        /**
+         * @return whether this chunk is compressed
+         */
+        public boolean isCompressed() {
+            return compressed;
+        }
+
+        /**
+         * @return a read-only view of the content of this chunk as stored
+         */
+        public ByteBuffer content() {
+            return content.asReadOnlyBuffer();
+        }
+
+        /**
+         * @return a new stream of the content of this chunk as stored
+         */
+        public InputStream stream() {
+            return new ByteBufferInputStream(content.duplicate());
+        }
+    }
+
+    private static final class Key {
+
+        private final String identifier;
+
+        private final int chunkIndex;
+
+        private Key(IRI id, int chunkIndex) {
+            this.identifier = id.getIRIString();
+            this.chunkIndex = chunkIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return chunkIndex == other.chunkIndex && identifier.equals(other.identifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(identifier, chunkIndex);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package edu.si.trellis;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Locale.ROOT;
+import static java.util.zip.Deflater.BEST_SPEED;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the chunks of a binary into buffers from a {@link ByteBufferPool}, favoring speed over ratio. A chunk
+ * that would not shrink is left as it is.
+ * <p>
+ * Not thread-safe!
+ * </p>
+ */
+class ChunkCompressor implements AutoCloseable {
+
+    /**
+     * Media types that are compressed already, and so gain nothing from more compression.
+     */
+    private static final Set<String> COMPRESSED_TYPES = unmodifiableSet(new HashSet<>(asList("image/jpeg",
+                    "image/png", "image/gif", "image/webp", "image/jp2", "image/heic", "application/zip",
+                    "application/gzip", "application/x-gzip", "application/x-bzip2", "application/x-xz",
+                    "application/zstd", "application/x-7z-compressed", "application/vnd.rar",
+                    "application/x-rar-compressed", "application/java-archive", "application/pdf", "audio/mpeg",
+                    "audio/aac", "audio/ogg", "audio/flac")));
+
+    private static final String[] COMPRESSED_TYPE_PREFIXES = { "video/" };
+
+    private static final String[] COMPRESSED_TYPE_SUFFIXES = { "+zip", "+gzip" };
+
+    private final Deflater deflater = new Deflater(BEST_SPEED);
+
+    private final ByteBufferPool buffers;
+
+    /**
+     * @param buffers the pool from which to take buffers for compressed chunks
+     */
+    ChunkCompressor(ByteBufferPool buffers) {
+        this.buffers = buffers;
+    }
+
+    /**
+     * @param mimeType the media type of a binary, if known
+     * @return whether chunks of that binary are worth compressing
+     */
+    static boolean compressible(Optional<String> mimeType) {
+        if (!mimeType.isPresent()) return true;
+        String type = mimeType.get().split(";", 2)[0].trim().toLowerCase(ROOT);
+        if (COMPRESSED_TYPES.contains(type)) return false;
+        for (String prefix : COMPRESSED_TYPE_PREFIXES)
+            if (type.startsWith(prefix)) return false;
+        for (String suffix : COMPRESSED_TYPE_SUFFIXES)
+            if (type.endsWith(suffix)) return false;
+        return true;
+    }
+
+    /**
+     * @param chunk a heap buffer holding a chunk, from its position to its limit
+     * @return a buffer from the pool holding the compressed chunk, or {@code chunk} itself if it would not shrink
+     */
+    ByteBuffer compress(ByteBuffer chunk) {
+        int length = chunk.remaining();
+        ByteBuffer compressed = buffers.acquire(chunk.capacity());
+        deflater.setInput(chunk.array(), chunk.arrayOffset() + chunk.position(), length);
+        deflater.finish();
+        // no room for output as long as the input means that compression did not pay
+        int compressedLength = deflater.deflate(compressed.array(), compressed.arrayOffset(), length);
+        boolean shrank = deflater.finished() && compressedLength < length;
+        deflater.reset();
+        if (!shrank) {
+            buffers.release(compressed);
+            return chunk;
+        }
+        ((Buffer) compressed).limit(compressedLength);
+        return compressed;
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,109 @@
+package edu.si.trellis;
+
+import static java.lang.Integer.highestOneBit;
+import static java.lang.Long.parseLong;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.OptionalLong;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+
+/**
+ * Chooses the size of chunk for a binary from its length, when that is hinted. A binary that fits in less than
+ * {@link MinChunkSize} is stored as one chunk of that size, which holds no more bytes than the binary. A longer binary
+ * is split into about {@link #TARGET_CHUNK_COUNT} chunks, but chunks are never smaller than {@link MinChunkSize} nor
+ * larger than {@link MaxChunkSize}. Chosen sizes are powers of two, so that a few sizes of chunk buffer serve most
+ * uploads. A binary of unknown length uses {@link DefaultChunkSize}. A hint may understate the length of a binary, for
+ * example with the length of its encoded content, so no hint leads to chunks smaller than {@link MinChunkSize}. A size
+ * of chunk requested outright is held within the same bounds.
+ */
+public class ChunkSizePolicy {
+
+    private static final Logger log = getLogger(ChunkSizePolicy.class);
+
+    /**
+     * The number of chunks into which a binary is split, if the bounds on chunk size allow.
+     */
+    public static final int TARGET_CHUNK_COUNT = 64;
+
+    static final String CONTENT_LENGTH_HINT = "Content-Length";
+
+    private final int defaultChunkSize, minChunkSize, maxChunkSize;
+
+    /**
+     * @param defaultChunkSize the size of chunk for binaries of unknown length
+     * @param minChunkSize the smallest size of chunk for binaries of hinted length
+     * @param maxChunkSize the largest size of chunk for any binary
+     */
+    @Inject
+    public ChunkSizePolicy(@DefaultChunkSize int defaultChunkSize, @MinChunkSize int minChunkSize,
+                    @MaxChunkSize int maxChunkSize) {
+        if (minChunkSize < 1) throw new IllegalArgumentException("Minimum chunk size < 1!");
+        if (maxChunkSize < minChunkSize) throw new IllegalArgumentException("Maximum chunk size < minimum!");
+        this.defaultChunkSize = defaultChunkSize;
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        log.info("Using configured chunk sizes: {} by default, from {} to {} by binary length", defaultChunkSize,
+                        minChunkSize, maxChunkSize);
+    }
+
+    /**
+     * @return the size of chunk for binaries of unknown length
+     */
+    public int defaultChunkSize() {
+        return defaultChunkSize;
+    }
+
+    /**
+     * @param hints hints about a binary, which may be {@code null}
+     * @return the size of chunk to use for that binary
+     */
+    public int chunkSize(Map<String, List<String>> hints) {
+        OptionalLong length = contentLength(hints);
+        return length.isPresent() ? chunkSize(length.getAsLong()) : defaultChunkSize;
+    }
+
+    /**
+     * @param length the length of a binary in bytes
+     * @return the size of chunk to use for that binary
+     */
+    public int chunkSize(long length) {
+        // a short hint on a long stream must not make for tiny chunks
+        if (length < minChunkSize) return minChunkSize;
+        long perChunk = (length + TARGET_CHUNK_COUNT - 1) / TARGET_CHUNK_COUNT;
+        return (int) Math.max(minChunkSize, Math.min(maxChunkSize, powerOfTwoAtLeast(perChunk)));
+    }
+
+    /**
+     * @param requested a size of chunk requested for a binary
+     * @return the nearest size of chunk to {@code requested} within the bounds of this policy
+     */
+    public int bounded(long requested) {
+        return (int) Math.max(minChunkSize, Math.min(maxChunkSize, requested));
+    }
+
+    private static int powerOfTwoAtLeast(long n) {
+        if (n > 1 << 30) return Integer.MAX_VALUE;
+        int floor = highestOneBit((int) n);
+        return floor == n ? floor : floor << 1;
+    }
+
+    private static OptionalLong contentLength(Map<String, List<String>> hints) {
+        if (hints == null) return OptionalLong.empty();
+        for (Entry<String, List<String>> hint : hints.entrySet())
+            if (CONTENT_LENGTH_HINT.equalsIgnoreCase(hint.getKey()) && hint.getValue() != null
+                            && hint.getValue().size() == 1)
+                try {
+                    long length = parseLong(hint.getValue().get(0).trim());
+                    if (length >= 0) return OptionalLong.of(length);
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring malformed {} hint: {}", CONTENT_LENGTH_HINT, hint.getValue());
+                }
+        return OptionalLong.empty();
+    }
+}
@@ -0,0 +1,81 @@
+package edu.si.trellis;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.datastax.driver.core.TokenRange;
+
+import edu.si.trellis.query.rdf.CopyContainment;
+
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.trellisldp.api.RuntimeTrellisException;
+
+/**
+ * Copies the containment of every resource into the containment table, one range of tokens at a time, to migrate a
+ * repository whose containment was served by the {@code basiccontainment} materialized view. Once it has completed,
+ * the view may be dropped. Copying is idempotent and safe beside ongoing writes, so a backfill that fails may simply
+ * be run again.
+ */
+@Singleton
+public class ContainmentBackfill {
+
+    private static final Logger log = getLogger(ContainmentBackfill.class);
+
+    private static final int IN_FLIGHT = 64;
+
+    private final CopyContainment copyContainment;
+
+    private final boolean enabled;
+
+    /**
+     * @param copyContainment a {@link CopyContainment} query to use
+     * @param enabled whether to backfill in the background once created
+     */
+    @Inject
+    public ContainmentBackfill(CopyContainment copyContainment, @BackfillContainment boolean enabled) {
+        this.copyContainment = copyContainment;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Begins backfilling in the background, if so configured.
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        Thread backfill = new Thread(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.error("Failed to backfill containment!", e);
+            }
+        }, "Containment backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    /**
+     * Backfills once, blocking until complete.
+     *
+     * @return how many resources had their containment copied
+     */
+    public synchronized long backfill() {
+        List<TokenRange> ranges = copyContainment.tokenRanges(1);
+        log.info("Backfilling containment across {} token ranges", ranges.size());
+        long copied = 0;
+        try {
+            for (TokenRange range : ranges)
+                copied += copyContainment.execute(range, IN_FLIGHT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeTrellisException("Interrupted while backfilling containment!", e);
+        }
+        log.info("Backfilled containment of {} resources", copied);
+        return copied;
+    }
+}
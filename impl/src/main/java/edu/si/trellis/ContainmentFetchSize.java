@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The number of contained resources to fetch in each page while listing the contents of a container.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface ContainmentFetchSize {
+
+    /**
+     * Default is the driver's own default page size.
+     */
+    public static final String value = "5000";
+}
@@ -0,0 +1,23 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The seconds of immutable data about a resource to record in each partition, or 0 to record all of it in one
+ * partition. Immutable data recorded either way is retrieved.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface ImmutableBucketSize {
+
+    /**
+     * Default is to record all immutable data about a resource in one partition.
+     */
+    public static final String value = "0";
+}
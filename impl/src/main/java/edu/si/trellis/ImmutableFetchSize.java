@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The number of rows of immutable data to fetch in each page while retrieving a resource.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface ImmutableFetchSize {
+
+    /**
+     * Default is 100 rows, each of which may hold a sizable amount of RDF.
+     */
+    public static final String value = "100";
+}
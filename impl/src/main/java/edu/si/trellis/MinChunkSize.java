@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The smallest size of chunk chosen for a binary that spans more than one chunk, unless a size is requested.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface MinChunkSize {
+
+    /**
+     * Default minimum chunk size.
+     */
+    public static final String value = "262144";
+}
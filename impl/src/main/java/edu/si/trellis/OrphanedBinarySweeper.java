@@ -0,0 +1,245 @@
+package edu.si.trellis;
+
+import static com.google.common.hash.Funnels.stringFunnel;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.TokenRange;
+import com.google.common.hash.BloomFilter;
+import com.google.common.util.concurrent.RateLimiter;
+
+import edu.si.trellis.query.binary.ScanBinaries;
+import edu.si.trellis.query.rdf.ScanBinaryReferences;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+
+/**
+ * Purges binaries that no resource or Memento references, such as those left behind when resources are replaced or
+ * deleted. A sweep scans {@code mutabledata} and {@code mementodata} for the binaries they reference, then
+ * {@code binarydata} for binaries written before a grace period, each range of tokens in parallel, and purges each
+ * binary that was not referenced as it is found, at a bounded rate. References are gathered into a Bloom filter of
+ * fixed size, so that a sweep holds a bounded amount of memory however many binaries there are; a false positive only
+ * spares an orphan until a later sweep. Because references are gathered first, a binary must be referenced within the
+ * grace period of being written. Sweeps run in the background at a configured interval, one at a time, and report
+ * their progress through counters that accumulate across sweeps.
+ */
+@Singleton
+public class OrphanedBinarySweeper {
+
+    private static final Logger log = getLogger(OrphanedBinarySweeper.class);
+
+    /**
+     * References beyond this many make the filter of references spare more orphans.
+     */
+    private static final int EXPECTED_REFERENCES = 10_000_000;
+
+    private static final double SPARED_ORPHANS = 0.01;
+
+    private final ScanBinaries scanBinaries;
+
+    private final ScanBinaryReferences scanReferences;
+
+    private final CassandraBinaryService binaryService;
+
+    private final long interval, gracePeriod;
+
+    private final int parallelism;
+
+    private final RateLimiter purges;
+
+    private final AtomicLong sweeps = new AtomicLong(), rangesScanned = new AtomicLong(),
+                    binariesScanned = new AtomicLong(), orphansFound = new AtomicLong(),
+                    binariesPurged = new AtomicLong(), purgeFailures = new AtomicLong();
+
+    private ScheduledExecutorService schedule;
+
+    /**
+     * @param scanBinaries a {@link ScanBinaries} query to use
+     * @param scanReferences a {@link ScanBinaryReferences} query to use
+     * @param binaryService the {@link CassandraBinaryService} with which to purge binaries
+     * @param interval the seconds between sweeps, or 0 to sweep only when {@link #sweep()} is called
+     * @param gracePeriod the seconds after a binary is written during which it is not purged
+     * @param parallelism how many token ranges to scan, and binaries to purge, at once
+     * @param rate the most binaries to purge per second
+     */
+    @Inject
+    public OrphanedBinarySweeper(ScanBinaries scanBinaries, ScanBinaryReferences scanReferences,
+                    CassandraBinaryService binaryService, @BinarySweepInterval long interval,
+                    @BinarySweepGracePeriod long gracePeriod, @BinarySweepParallelism int parallelism,
+                    @BinarySweepRate int rate) {
+        this.scanBinaries = scanBinaries;
+        this.scanReferences = scanReferences;
+        this.binaryService = binaryService;
+        if (interval < 0) throw new IllegalArgumentException("Sweep interval < 0!");
+        this.interval = interval;
+        if (gracePeriod < 0) throw new IllegalArgumentException("Sweep grace period < 0!");
+        this.gracePeriod = gracePeriod;
+        if (parallelism < 1) throw new IllegalArgumentException("Sweep parallelism < 1!");
+        this.parallelism = parallelism;
+        if (rate < 1) throw new IllegalArgumentException("Sweep rate < 1!");
+        this.purges = RateLimiter.create(rate);
+        log.info("Using configured binary sweep interval: {}s, grace period: {}s, parallelism: {}, rate: {}/s",
+                        interval, gracePeriod, parallelism, rate);
+    }
+
+    /**
+     * Begins sweeping in the background, if an interval was configured.
+     */
+    @PostConstruct
+    void start() {
+        if (interval == 0) return;
+        schedule = newSingleThreadScheduledExecutor(r -> {
+            Thread sweeper = new Thread(r, "Orphaned binary sweeper");
+            sweeper.setDaemon(true);
+            return sweeper;
+        });
+        schedule.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.error("Failed to sweep for orphaned binaries!", e);
+            }
+        }, interval, interval, SECONDS);
+    }
+
+    /**
+     * Stops sweeping in the background.
+     */
+    @PreDestroy
+    void stop() {
+        if (schedule != null) schedule.shutdownNow();
+    }
+
+    /**
+     * Sweeps for orphaned binaries once, blocking until the sweep is complete.
+     *
+     * @return how many binaries this sweep purged
+     */
+    public synchronized long sweep() {
+        long sweep = sweeps.incrementAndGet(), purgedBefore = binariesPurged.get();
+        long cutoff = MILLISECONDS.toMicros(System.currentTimeMillis()) - SECONDS.toMicros(gracePeriod);
+        List<TokenRange> ranges = scanBinaries.tokenRanges(parallelism);
+        log.info("Sweep {} for orphaned binaries scanning {} token ranges", sweep, ranges.size());
+        ExecutorService scanners = newFixedThreadPool(parallelism);
+        try {
+            BloomFilter<CharSequence> referenced = BloomFilter.create(stringFunnel(UTF_8), EXPECTED_REFERENCES,
+                            SPARED_ORPHANS);
+            AtomicLong references = new AtomicLong();
+            scan(ranges, range -> scanReferences.execute(range).forEach(id -> {
+                references.incrementAndGet();
+                synchronized (referenced) {
+                    referenced.put(id.getIRIString());
+                }
+            }), scanners);
+            log.info("Sweep {} found {} references to binaries", sweep, references.get());
+            if (references.get() > EXPECTED_REFERENCES)
+                log.warn("Sweep {} found more than {} references, so it may spare more orphans", sweep,
+                                EXPECTED_REFERENCES);
+            // the filter is only read from here on
+            scan(ranges, range -> {
+                for (Row row : scanBinaries.execute(range)) {
+                    binariesScanned.incrementAndGet();
+                    if (row.isNull("written") || row.getLong("written") >= cutoff) continue;
+                    IRI id = row.get("identifier", IRI.class);
+                    if (!referenced.mightContain(id.getIRIString())) purge(id);
+                }
+            }, scanners);
+        } finally {
+            scanners.shutdown();
+        }
+        long purged = binariesPurged.get() - purgedBefore;
+        log.info("Sweep {} purged {} orphaned binaries", sweep, purged);
+        return purged;
+    }
+
+    private void scan(List<TokenRange> ranges, Consumer<TokenRange> scan, ExecutorService scanners) {
+        List<CompletableFuture<Void>> scans = new ArrayList<>(ranges.size());
+        for (TokenRange range : ranges)
+            scans.add(runAsync(() -> {
+                scan.accept(range);
+                rangesScanned.incrementAndGet();
+            }, scanners));
+        allOf(scans.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Purges one orphan, after waiting for a permit from {@link #purges}, before its scan moves on, so that no more
+     * than {@link #parallelism} purges are in flight at once.
+     */
+    private void purge(IRI orphan) {
+        orphansFound.incrementAndGet();
+        purges.acquire();
+        log.debug("Purging orphaned binary: {}", orphan);
+        binaryService.purgeContent(orphan).handle((dummy, e) -> {
+            if (e == null) binariesPurged.incrementAndGet();
+            else {
+                purgeFailures.incrementAndGet();
+                log.error("Failed to purge orphaned binary: " + orphan, e);
+            }
+            return null;
+        }).join();
+    }
+
+    /**
+     * @return how many sweeps have begun
+     */
+    public long sweeps() {
+        return sweeps.get();
+    }
+
+    /**
+     * @return how many token ranges have been scanned, once for binaries and once for references in each sweep
+     */
+    public long rangesScanned() {
+        return rangesScanned.get();
+    }
+
+    /**
+     * @return how many binaries have been scanned
+     */
+    public long binariesScanned() {
+        return binariesScanned.get();
+    }
+
+    /**
+     * @return how many orphaned binaries have been found
+     */
+    public long orphansFound() {
+        return orphansFound.get();
+    }
+
+    /**
+     * @return how many orphaned binaries have been purged
+     */
+    public long binariesPurged() {
+        return binariesPurged.get();
+    }
+
+    /**
+     * @return how many purges of orphaned binaries have failed
+     */
+    public long purgeFailures() {
+        return purgeFailures.get();
+    }
+}
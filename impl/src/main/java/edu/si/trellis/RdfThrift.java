@@ -0,0 +1,23 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * Whether the RDF of resources is written in the binary RDF Thrift encoding, rather than as N-Quads. Either encoding
+ * is read, whichever was written.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface RdfThrift {
+
+    /**
+     * Default is to write N-Quads.
+     */
+    public static final String value = "false";
+}
@@ -0,0 +1,111 @@
+package edu.si.trellis;
+
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.Resource.SpecialResources.MISSING_RESOURCE;
+
+import com.google.common.cache.Cache;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+import org.trellisldp.api.Resource;
+
+/**
+ * A cache of resources as retrieved, keyed by identifier. A resource holds only its metadata; its RDF is retrieved
+ * whenever it is streamed. The least recently used resources are evicted to keep the cache under a bound, and every
+ * resource expires after a time, which bounds how stale a resource changed by another node may be. Changes made
+ * through this node invalidate what they change. With a bound of 0, nothing is cached.
+ */
+@Singleton
+public class ResourceCache {
+
+    private static final Logger log = getLogger(ResourceCache.class);
+
+    private static final int STRIPES = 64;
+
+    private final Cache<String, Resource> resources;
+
+    /**
+     * Counts invalidations by stripe of identifiers, so that a retrieval overlapping an invalidation is not cached.
+     */
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    /**
+     * @param maxResources the most resources to cache
+     * @param expiry the seconds for which to cache a resource
+     */
+    @Inject
+    public ResourceCache(@ResourceCacheSize long maxResources, @ResourceCacheExpiry long expiry) {
+        if (maxResources < 0) throw new IllegalArgumentException("Cache size < 0!");
+        if (expiry < 0) throw new IllegalArgumentException("Cache expiry < 0!");
+        if (maxResources == 0 || expiry == 0) this.resources = null;
+        else this.resources = newBuilder().maximumSize(maxResources).expireAfterWrite(expiry, SECONDS).recordStats()
+                        .build();
+        log.info("Using configured resource cache size: {}, expiry: {}s", maxResources, expiry);
+    }
+
+    /**
+     * @param id the {@link IRI} of a resource
+     * @param retrieve retrieves the resource if it is not cached
+     * @return the resource, which is cached if it exists
+     */
+    public CompletionStage<Resource> get(IRI id, Function<IRI, CompletionStage<Resource>> retrieve) {
+        if (resources == null) return retrieve.apply(id);
+        String key = id.getIRIString();
+        Resource cached = resources.getIfPresent(key);
+        if (cached != null) return completedFuture(cached);
+        int stripe = stripe(key);
+        long before = invalidations.get(stripe);
+        return retrieve.apply(id).thenApply(resource -> {
+            if (resource == MISSING_RESOURCE) return resource;
+            resources.put(key, resource);
+            // an invalidation since retrieval began may have been missed, or may yet remove nothing
+            if (invalidations.get(stripe) != before) resources.invalidate(key);
+            return resource;
+        });
+    }
+
+    /**
+     * @param id the {@link IRI} of a resource that has changed
+     */
+    public void invalidate(IRI id) {
+        if (resources == null) return;
+        String key = id.getIRIString();
+        invalidations.incrementAndGet(stripe(key));
+        resources.invalidate(key);
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    /**
+     * @return how many requests for a resource were answered from this cache
+     */
+    public long hitCount() {
+        return resources == null ? 0 : resources.stats().hitCount();
+    }
+
+    /**
+     * @return how many requests for a resource were not answered from this cache
+     */
+    public long missCount() {
+        return resources == null ? 0 : resources.stats().missCount();
+    }
+
+    /**
+     * @return how many resources have been evicted from this cache, to keep it within its bound or because they expired
+     */
+    public long evictionCount() {
+        return resources == null ? 0 : resources.stats().evictionCount();
+    }
+}
@@ -0,0 +1,23 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The seconds for which a {@link ResourceCache} holds the metadata of a resource, which bounds how stale it may be
+ * when another node changes the resource.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface ResourceCacheExpiry {
+
+    /**
+     * Default is ten seconds.
+     */
+    public static final String value = "10";
+}
@@ -0,0 +1,22 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The most resources whose metadata a {@link ResourceCache} holds. 0 disables the cache.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface ResourceCacheSize {
+
+    /**
+     * Default is no cache.
+     */
+    public static final String value = "0";
+}
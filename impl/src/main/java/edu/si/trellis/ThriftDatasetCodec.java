@@ -0,0 +1,82 @@
+package edu.si.trellis;
+
+import static org.apache.jena.riot.Lang.RDFTHRIFT;
+import static org.apache.jena.riot.RDFDataMgr.read;
+import static org.apache.jena.riot.RDFFormat.RDF_THRIFT;
+import static org.apache.jena.riot.system.StreamRDFWriter.getWriterStream;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+import com.datastax.driver.core.utils.Bytes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDF;
+
+/**
+ * (De)serializes {@link Dataset}s as binary RDF Thrift, which is much cheaper to parse than N-Quads. Quads in the
+ * default graph are recorded as triples.
+ */
+class ThriftDatasetCodec extends TypeCodec<Dataset> {
+
+    static final ThriftDatasetCodec thriftDatasetCodec = new ThriftDatasetCodec();
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private ThriftDatasetCodec() {
+        super(DataType.blob(), Dataset.class);
+    }
+
+    @Override
+    public ByteBuffer serialize(Dataset dataset, ProtocolVersion protocolVersion) {
+        if (dataset == null || dataset.size() == 0) return null;
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
+            StreamRDF thrift = getWriterStream(bytes, RDF_THRIFT);
+            thrift.start();
+            dataset.stream().map(rdf::asJenaQuad).forEach(quad -> {
+                if (quad.isDefaultGraph()) thrift.triple(quad.asTriple());
+                else thrift.quad(quad);
+            });
+            thrift.finish();
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } catch (RiotException e) {
+            throw new InvalidTypeException("Dataset is impossible to serialize!", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Dataset could not be serialized!", e);
+        }
+    }
+
+    @Override
+    public Dataset deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
+        if (bytes == null) return rdf.createDataset();
+        org.apache.jena.query.Dataset dataset = DatasetFactory.create();
+        try {
+            read(dataset, new ByteArrayInputStream(Bytes.getArray(bytes)), RDFTHRIFT);
+            return rdf.asDataset(dataset);
+        } catch (RiotException e) {
+            throw new InvalidTypeException("Dataset is impossible to deserialize!", e);
+        }
+    }
+
+    @Override
+    public Dataset parse(String value) {
+        if (value == null || value.isEmpty() || value.equalsIgnoreCase("NULL")) return rdf.createDataset();
+        return deserialize(Bytes.fromHexString(value), null);
+    }
+
+    @Override
+    public String format(Dataset dataset) {
+        ByteBuffer bytes = serialize(dataset, null);
+        return bytes == null ? "NULL" : Bytes.toHexString(bytes);
+    }
+}
@@ -0,0 +1,167 @@
+package edu.si.trellis;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import edu.si.trellis.query.rdf.Touch;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+
+/**
+ * Merges touches of a resource that arrive within a window of time into one write of the latest modification time, so
+ * that a container into which many children are created at once is not written for each of them. The first touch of
+ * a resource opens its window, and the window's one write happens behind every touch: a touch completes as soon as it
+ * is recorded in its window, and a failed write is logged and counted, not reported to the touches merged into it. The
+ * cached resource is invalidated once the write completes, so that it is not retrieved stale meanwhile and then kept.
+ * With no window, each touch is written as it comes and completes when its write does.
+ */
+@Singleton
+public class TouchCoalescer {
+
+    private static final Logger log = getLogger(TouchCoalescer.class);
+
+    private static final CompletableFuture<Void> RECORDED = completedFuture(null);
+
+    private final Touch touch;
+
+    private final ResourceCache cache;
+
+    private final long window;
+
+    /**
+     * The latest modification time of each resource whose window is open.
+     */
+    private final ConcurrentMap<IRI, Instant> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService schedule;
+
+    private final AtomicLong touches = new AtomicLong(), touchesMerged = new AtomicLong(),
+                    touchesWritten = new AtomicLong(), touchFailures = new AtomicLong();
+
+    /**
+     * @param touch a {@link Touch} query to use
+     * @param cache the {@link ResourceCache} in which to invalidate a resource once its touches are written
+     * @param window the milliseconds during which to merge touches of a resource, or 0 not to merge them
+     */
+    @Inject
+    public TouchCoalescer(Touch touch, ResourceCache cache, @TouchWindow long window) {
+        this(touch, cache, window, window > 0 ? newSingleThreadScheduledExecutor(r -> {
+            Thread writer = new Thread(r, "Touch coalescer");
+            writer.setDaemon(true);
+            return writer;
+        }) : null);
+    }
+
+    /**
+     * @param touch a {@link Touch} query to use
+     * @param cache the {@link ResourceCache} in which to invalidate a resource once its touches are written
+     * @param window the milliseconds during which to merge touches of a resource, or 0 not to merge them
+     * @param schedule on which to close windows, or {@code null} if {@code window} is 0
+     */
+    TouchCoalescer(Touch touch, ResourceCache cache, long window, ScheduledExecutorService schedule) {
+        this.touch = touch;
+        this.cache = cache;
+        if (window < 0) throw new IllegalArgumentException("Touch window < 0!");
+        this.window = window;
+        this.schedule = schedule;
+        log.info("Using configured touch window: {}ms", window);
+    }
+
+    /**
+     * Writes any touches still waiting for their windows to close.
+     */
+    @PreDestroy
+    void stop() {
+        if (schedule == null) return;
+        schedule.shutdownNow();
+        pending.keySet().forEach(this::write);
+    }
+
+    /**
+     * @param id the {@link IRI} of the resource to touch
+     * @param modified the modification time to record
+     * @return whether and when this touch has been written or, within a window, recorded to be written
+     */
+    public CompletableFuture<Void> touch(IRI id, Instant modified) {
+        touches.incrementAndGet();
+        if (schedule == null || schedule.isShutdown()) return write(id, modified);
+        boolean[] opened = new boolean[1];
+        pending.compute(id, (i, earlier) -> {
+            opened[0] = earlier == null;
+            // only the latest modification time is kept
+            return earlier == null || modified.isAfter(earlier) ? modified : earlier;
+        });
+        if (opened[0]) open(id);
+        else touchesMerged.incrementAndGet();
+        return RECORDED;
+    }
+
+    private void open(IRI id) {
+        try {
+            schedule.schedule(() -> write(id), window, MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // stopped meanwhile, so there is no window to wait for
+            write(id);
+        }
+    }
+
+    private void write(IRI id) {
+        // once removed, no more touches can be merged into this one
+        Instant modified = pending.remove(id);
+        if (modified != null) write(id, modified).whenComplete((dummy, e) -> {
+            cache.invalidate(id);
+            if (e != null) {
+                touchFailures.incrementAndGet();
+                log.error("Failed to touch " + id + " at " + modified, e);
+            }
+        });
+    }
+
+    private CompletableFuture<Void> write(IRI id, Instant modified) {
+        touchesWritten.incrementAndGet();
+        return touch.execute(modified, id);
+    }
+
+    /**
+     * @return how many touches have been requested
+     */
+    public long touches() {
+        return touches.get();
+    }
+
+    /**
+     * @return how many touches have been merged into an earlier touch of the same resource
+     */
+    public long touchesMerged() {
+        return touchesMerged.get();
+    }
+
+    /**
+     * @return how many touches have been written
+     */
+    public long touchesWritten() {
+        return touchesWritten.get();
+    }
+
+    /**
+     * @return how many writes of merged touches have failed
+     */
+    public long touchFailures() {
+        return touchFailures.get();
+    }
+}
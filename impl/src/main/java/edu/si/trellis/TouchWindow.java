@@ -0,0 +1,23 @@
+package edu.si.trellis;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+
+import javax.inject.Qualifier;
+
+/**
+ * The milliseconds during which a {@link TouchCoalescer} merges touches of a resource into one write, or 0 to write
+ * each touch as it comes.
+ */
+@Documented
+@Retention(RUNTIME)
+@Qualifier
+public @interface TouchWindow {
+
+    /**
+     * Default is to write each touch as it comes.
+     */
+    public static final String value = "0";
+}
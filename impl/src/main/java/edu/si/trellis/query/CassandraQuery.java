@@ -1,11 +1,14 @@
 package edu.si.trellis.query;
 
+import static java.util.Collections.singletonList;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import com.datastax.driver.core.*;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -64,6 +67,17 @@ public abstract class CassandraQuery {
                         .thenAccept(r -> log.debug("Executed CQL write: {}", queryString));
     }
 
+    /**
+     * @param batch CQL statements to execute together, with the consistency of this query
+     * @return when and whether the batch completed
+     */
+    protected CompletableFuture<Void> executeWrite(BatchStatement batch) {
+        batch.setConsistencyLevel(preparedStatement.getConsistencyLevel());
+        log.debug("Executing CQL batch of {} statements", batch.size());
+        return translate(session.executeAsync(batch), writeWorkers)
+                        .thenAccept(r -> log.debug("Executed CQL batch of {} statements", batch.size()));
+    }
+
     /**
      * @param statement the CQL statement to execute
      * @return the results of that statement
@@ -80,6 +94,19 @@ public abstract class CassandraQuery {
         return session.execute(statement);
     }
 
+    /**
+     * @param splits into how many pieces to split each range that the cluster reports
+     * @return ranges that together cover the ring of tokens once, none of which wraps around the ring, for scanning a
+     *         table range by range
+     */
+    protected List<TokenRange> tokenRanges(int splits) {
+        List<TokenRange> ranges = new ArrayList<>();
+        for (TokenRange range : session.getCluster().getMetadata().getTokenRanges())
+            for (TokenRange unwrapped : range.unwrap())
+                ranges.addAll(splits > 1 ? unwrapped.splitEvenly(splits) : singletonList(unwrapped));
+        return ranges;
+    }
+
     private <T> CompletableFuture<T> translate(ListenableFuture<T> future, Executor workers) {
         CompletableFuture<T> result = new CompletableFuture<>();
         future.addListener(() -> {
@@ -1,10 +1,16 @@
 package edu.si.trellis.query.binary;
 
+import static java.util.stream.Collectors.toList;
+
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Session;
 
 import edu.si.trellis.query.CassandraQuery;
 
+import java.util.List;
+import java.util.stream.StreamSupport;
+
 abstract class BinaryQuery extends CassandraQuery {
 
     BinaryQuery(Session session, String queryString, ConsistencyLevel consistency) {
@@ -12,4 +18,40 @@ abstract class BinaryQuery extends CassandraQuery {
     }
     
     static final String BINARY_TABLENAME = "binarydata";
+
+    static final String SHARED_CHUNK_TABLENAME = "sharedchunks";
+
+    static final String SHARED_CHUNK_REFERENCES_TABLENAME = "sharedchunkreferences";
+
+    /**
+     * Holds the chunks of bucketed binaries, partitioned by binary and bucket. The {@link #BINARY_TABLENAME} partition
+     * of a bucketed binary holds its summary metadata and one row for each of its buckets, keyed by the index of the
+     * first chunk in that bucket.
+     */
+    static final String BUCKETED_CHUNK_TABLENAME = "binarychunks";
+
+    /**
+     * Retrieves the rows that record the buckets of a bucketed binary.
+     */
+    static final String BUCKETS_QUERY = "SELECT chunkIndex FROM " + BINARY_TABLENAME
+                    + " WHERE identifier = :identifier;";
+
+    /**
+     * @param rows the results of {@link #BUCKETS_QUERY} for a bucketed binary
+     * @param bucketSize how many chunks make up each bucket of that binary
+     * @return the buckets of that binary, in order
+     */
+    static List<Integer> buckets(ResultSet rows, int bucketSize) {
+        return StreamSupport.stream(rows.spliterator(), false).map(r -> bucket(r.getInt("chunkIndex"), bucketSize))
+                        .distinct().collect(toList());
+    }
+
+    /**
+     * @param chunkIndex the index of a chunk
+     * @param bucketSize how many chunks make up each bucket of a bucketed binary
+     * @return the bucket that holds that chunk
+     */
+    static int bucket(int chunkIndex, int bucketSize) {
+        return chunkIndex / bucketSize;
+    }
 }
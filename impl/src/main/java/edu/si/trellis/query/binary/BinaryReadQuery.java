@@ -1,124 +1,173 @@
 package edu.si.trellis.query.binary;
 
-import static java.util.stream.StreamSupport.stream;
+import static com.google.common.collect.Iterators.transform;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.stream.Collectors.toList;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
 
-import edu.si.trellis.LazyChunkInputStream;
-import java.io.ByteArrayInputStream;
+import edu.si.trellis.ChunkCache;
+import edu.si.trellis.ChunkCache.Chunk;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.rdf.api.IRI;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.trellisldp.api.RuntimeTrellisException;
 
 /**
- * A query that reads binary data from Cassandra.
+ * A query that reads binary data from Cassandra, through a {@link ChunkCache}. Queries that read whole binaries only
+ * consult the cache, since filling it with every chunk streamed would evict chunks that are read repeatedly.
  */
 abstract class BinaryReadQuery extends BinaryQuery {
 
     private static final Logger log = getLogger(BinaryReadQuery.class);
 
-    private static final String READ_CHUNK_QUERY = "SELECT chunk FROM " + BINARY_TABLENAME
+    private static final String READ_CHUNK_QUERY = "SELECT chunk, chunkDigest, compressed FROM " + BINARY_TABLENAME
                     + " WHERE identifier = :identifier and chunkIndex = :chunkIndex;";
 
-    private final PreparedStatement readChunkStatement;
+    private static final String READ_SHARED_CHUNK_QUERY = "SELECT chunk, compressed FROM " + SHARED_CHUNK_TABLENAME
+                    + " WHERE digest = :digest;";
+
+    private static final String READ_BUCKETED_CHUNK_QUERY = "SELECT chunk, chunkDigest, compressed FROM "
+                    + BUCKETED_CHUNK_TABLENAME
+                    + " WHERE identifier = :identifier and bucket = :bucket and chunkIndex = :chunkIndex;";
+
+    private final PreparedStatement readChunkStatement, readBucketedChunkStatement, readSharedChunkStatement;
+
+    private final int readAhead;
 
-    BinaryReadQuery(Session session, String queryString, ConsistencyLevel consistency) {
+    private final ChunkCache cache;
+
+    private final boolean populate;
+
+    BinaryReadQuery(Session session, String queryString, ConsistencyLevel consistency, int readAhead,
+                    ChunkCache cache, boolean populate) {
         super(session, queryString, consistency);
+        this.cache = cache;
+        this.populate = populate;
         this.readChunkStatement = session.prepare(READ_CHUNK_QUERY);
+        this.readBucketedChunkStatement = session.prepare(READ_BUCKETED_CHUNK_QUERY);
+        this.readSharedChunkStatement = session.prepare(READ_SHARED_CHUNK_QUERY);
+        if (readAhead < 0) throw new IllegalArgumentException("Read-ahead < 0!");
+        this.readAhead = readAhead;
     }
 
-    //@formatter:off
     /**
-     * @param id an {@link IRI} for a binary 
+     * @param id an {@link IRI} for a binary
      * @param statement a CQL query that retrieves the chunk indexes of chunks for {@code id}
      * @return An {@link InputStream} of bytes as requested. The {@code skip} method of this {@code InputStream} is
      *         guaranteed to skip as many bytes as asked.
      */
     protected InputStream retrieve(IRI id, Statement statement) {
-        return stream(executeSyncRead(statement).spliterator(), false)
-                        .mapToInt(r -> r.getInt("chunkIndex"))
-                        .mapToObj(chunkIndex -> readChunkStatement.bind()
-                                            .setInt("chunkIndex", chunkIndex)
-                                            .set("identifier", id, IRI.class))
-                        .peek(chunkIndex -> log.debug("Retrieving stream for chunk: {}", chunkIndex))
-                        .<InputStream> map(s -> new LazyChunkInputStream(session, s))
-                        .reduce(SequenceInputStream::new) // chunks now in one large stream
-                        .orElseThrow(() -> new RuntimeTrellisException("Binary not found under IRI: " + id.getIRIString()));
+        Iterator<Row> chunkIndexes = executeSyncRead(statement).iterator();
+        if (!chunkIndexes.hasNext())
+            throw new RuntimeTrellisException("Binary not found under IRI: " + id.getIRIString());
+        return retrieve(id, 0, transform(chunkIndexes, r -> r.getInt("chunkIndex")));
     }
-    //@formatter:on
 
     /**
-     * An {@link InputStream} that sequentially streams two underlying streams. {@link #skip(long)} calls {@code skip}
-     * on the underlying streams before defaulting to using {@link IOUtils#skip(InputStream, long)}, and
-     * {@link #read(byte[], int, int)} also calls {@code read(byte[], int, int)} on the underlying streams. This is
-     * useful in particular with {@link ByteArrayInputStream}s, which have very fast
-     * {@link ByteArrayInputStream#skip(long)} and {@link ByteArrayInputStream#read(byte[], int, int)} implementations.
-     *
+     * @param id an {@link IRI} for a binary
+     * @param bucketSize how many chunks make up each bucket of that binary, or 0 if it is stored in one partition
+     * @param chunkIndexes the indexes of the chunks to retrieve, in order
+     * @return An {@link InputStream} of bytes as requested. The {@code skip} method of this {@code InputStream} is
+     *         guaranteed to skip as many bytes as asked.
      */
-    static class SequenceInputStream extends InputStream {
+    protected InputStream retrieve(IRI id, int bucketSize, Iterator<Integer> chunkIndexes) {
+        return new ChunkSequenceInputStream(new ReadAheadChunks(chunkIndexes,
+                        i -> fetch(id, bucketSize, i).thenApply(BinaryReadQuery::stream), readAhead));
+    }
 
-        private final InputStream s1, s2;
+    /**
+     * @param id an {@link IRI} for a binary
+     * @param bucketSize how many chunks make up each bucket of that binary, or 0 if it is stored in one partition
+     * @param chunkIndexes supplies, for each subscription, the indexes of the chunks to publish, in order
+     * @return A {@link Publisher} of the chunks as requested, uncompressed, which fetches chunks only as they are
+     *         demanded and never blocks
+     */
+    protected Publisher<ByteBuffer> publish(IRI id, int bucketSize,
+                    Supplier<CompletableFuture<Iterator<Integer>>> chunkIndexes) {
+        return new ChunkPublisher(chunkIndexes, i -> fetch(id, bucketSize, i).thenApply(BinaryReadQuery::bytes),
+                        readAhead);
+    }
 
-        /**
-         * Changes from {@link #s1} to {@link #s2} to {@code null} via {@link #next()}.
-         */
-        private InputStream current;
+    /**
+     * @param statement a CQL query that retrieves the chunk indexes of chunks for {@code id}
+     * @return the chunk indexes, without blocking the calling thread
+     */
+    protected CompletableFuture<Iterator<Integer>> chunkIndexes(IRI id, Statement statement) {
+        return executeRead(statement).thenApply(rows -> {
+            List<Integer> chunkIndexes = rows.all().stream().map(r -> r.getInt("chunkIndex")).collect(toList());
+            if (chunkIndexes.isEmpty())
+                throw new RuntimeTrellisException("Binary not found under IRI: " + id.getIRIString());
+            return chunkIndexes.iterator();
+        });
+    }
 
-        public SequenceInputStream(InputStream s1, InputStream s2) {
-            this.current = (this.s1 = s1);
-            this.s2 = s2;
-        }
+    /**
+     * Fetches a chunk from the cache, or else from Cassandra, following its digest to the shared chunks if it was
+     * deduplicated.
+     */
+    private CompletableFuture<Chunk> fetch(IRI id, int bucketSize, int chunkIndex) {
+        long generation = cache.generation(id);
+        Chunk cached = cache.get(id, chunkIndex);
+        if (cached != null) return completedFuture(cached);
+        log.debug("Retrieving stream for chunk: {}", chunkIndex);
+        BoundStatement statement = bucketSize == 0 ? readChunkStatement.bind()
+                        : readBucketedChunkStatement.bind().setInt("bucket", bucket(chunkIndex, bucketSize));
+        return executeRead(statement.setInt("chunkIndex", chunkIndex).set("identifier", id, IRI.class))
+                        .thenCompose(rows -> {
+                            Row row = requireNonNull(rows.one(), "Missing binary chunk!");
+                            ByteBuffer digest = row.getBytes("chunkDigest");
+                            if (digest == null) return completedFuture(cache(id, chunkIndex, row, generation));
+                            return fetchShared(id, chunkIndex, digest, generation);
+                        });
+    }
 
-        @Override
-        public long skip(long n) throws IOException {
-            if (current == null || n <= 0) return 0;
-            long toSkip = n;
-            toSkip -= current.skip(toSkip);
-            if (toSkip > 0) { // we ran out of bytes to skip from current
-                toSkip -= IOUtils.skip(current, toSkip); // read them instead
-                if (toSkip > 0) {
-                    next();
-                    toSkip -= skip(toSkip);
-                }
-            }
-            return n - toSkip;
-        }
+    private CompletableFuture<Chunk> fetchShared(IRI id, int chunkIndex, ByteBuffer digest, long generation) {
+        return executeRead(readSharedChunkStatement.bind().setBytes("digest", digest)).thenApply(rows -> {
+            Row row = requireNonNull(rows.one(), "Missing shared binary chunk!");
+            return cache(id, chunkIndex, row, generation);
+        });
+    }
 
-        @Override
-        public int read() throws IOException {
-            if (current == null) return -1;
-            int take = current.read();
-            if (take == -1) {
-                next();
-                return read();
-            }
-            return take;
-        }
+    private Chunk cache(IRI id, int chunkIndex, Row row, long generation) {
+        // chunks recorded before compression was available have no flag
+        boolean compressed = row.getBool("compressed");
+        if (!populate) return ChunkCache.uncached(row.getBytes("chunk"), compressed);
+        return cache.put(id, chunkIndex, row.getBytes("chunk"), compressed, generation);
+    }
 
-        @Override
-        public int read(byte[] b, int offset, int length) throws IOException {
-            if (offset < 0 || length < 0 || length > b.length - offset) throw new IndexOutOfBoundsException();
-            if (length == 0) return 0;
-            if (current == null) return -1;
-            int read = current.read(b, offset, length);
-            if (read <= 0) { // we couldn't get any bytes from current
-                next();
-                return read(b, offset, length);
-            }
-            return read;
-        }
+    /**
+     * Compressed chunks are inflated as they are read, so offsets within them count uncompressed bytes.
+     */
+    private static InputStream stream(Chunk chunk) {
+        return chunk.isCompressed() ? new InflaterInputStream(chunk.stream()) : chunk.stream();
+    }
 
-        private void next() throws IOException {
-            if (current != null) current.close();
-            current = current == s1 ? s2 : null;
+    private static ByteBuffer bytes(Chunk chunk) {
+        if (!chunk.isCompressed()) return chunk.content();
+        try (InputStream inflated = stream(chunk)) {
+            return ByteBuffer.wrap(IOUtils.toByteArray(inflated));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 }
@@ -0,0 +1,66 @@
+package edu.si.trellis.query.binary;
+
+import static java.util.concurrent.CompletableFuture.allOf;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A query that writes a chunk of a binary to Cassandra, in whichever layout that binary uses.
+ */
+abstract class BinaryWriteQuery extends BinaryQuery {
+
+    private static final String INSERT_BUCKET_QUERY = "INSERT INTO " + BINARY_TABLENAME
+                    + " (identifier, chunkIndex, chunkSize, bucketSize, deduplicated) VALUES "
+                    + "(:identifier, :chunkIndex, :chunkSize, :bucketSize, :deduplicated)";
+
+    private final PreparedStatement bucketedStatement, bucketStatement;
+
+    private final boolean deduplicated;
+
+    /**
+     * @param session a {@link Session} to the Cassandra cluster
+     * @param queryString the CQL string that writes a chunk of a binary stored in one partition
+     * @param bucketedQueryString the CQL string that writes a chunk of a bucketed binary
+     * @param deduplicated whether the binaries written by this query are deduplicated
+     * @param consistency the {@link ConsistencyLevel} to use for executions of this query
+     */
+    BinaryWriteQuery(Session session, String queryString, String bucketedQueryString, boolean deduplicated,
+                    ConsistencyLevel consistency) {
+        super(session, queryString, consistency);
+        this.bucketedStatement = session.prepare(bucketedQueryString).setConsistencyLevel(consistency);
+        this.bucketStatement = session.prepare(INSERT_BUCKET_QUERY).setConsistencyLevel(consistency);
+        this.deduplicated = deduplicated;
+    }
+
+    /**
+     * Writes a chunk. A chunk that begins a bucket is written together with the row that records that bucket.
+     * 
+     * @param id the {@link IRI} of a binary
+     * @param chunkSize size of chunk used for this binary
+     * @param bucketSize how many chunks make up each bucket of this binary, or 0 to store it in one partition
+     * @param chunkIndex which chunk this is
+     * @param values sets the remaining values of the chunk on a bound statement
+     * @return whether and when the chunk has been written
+     */
+    protected CompletableFuture<Void> write(IRI id, int chunkSize, int bucketSize, int chunkIndex,
+                    UnaryOperator<BoundStatement> values) {
+        if (bucketSize == 0) return executeWrite(values.apply(preparedStatement().bind()
+                        .set("identifier", id, IRI.class).setInt("chunkSize", chunkSize)
+                        .setInt("chunkIndex", chunkIndex)));
+        BoundStatement chunk = values.apply(bucketedStatement.bind().set("identifier", id, IRI.class)
+                        .setInt("bucket", bucket(chunkIndex, bucketSize)).setInt("chunkIndex", chunkIndex));
+        if (chunkIndex % bucketSize != 0) return executeWrite(chunk);
+        BoundStatement bucket = bucketStatement.bind().set("identifier", id, IRI.class).setInt("chunkIndex", chunkIndex)
+                        .setInt("chunkSize", chunkSize).setInt("bucketSize", bucketSize)
+                        .setBool("deduplicated", deduplicated);
+        return allOf(executeWrite(bucket), executeWrite(chunk));
+    }
+}
@@ -0,0 +1,151 @@
+package edu.si.trellis.query.binary;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Publishes the chunks of a binary, in order, as {@link ByteBuffer}s. Chunks are fetched asynchronously and only as
+ * subscribers demand them, with no more than {@code window + 1} fetches in flight, so no thread waits on Cassandra
+ * on behalf of a subscriber. Each subscription reads the binary from its beginning.
+ */
+class ChunkPublisher implements Publisher<ByteBuffer> {
+
+    private final Supplier<CompletableFuture<Iterator<Integer>>> chunkIndexes;
+
+    private final IntFunction<CompletableFuture<ByteBuffer>> fetch;
+
+    private final int window;
+
+    /**
+     * @param chunkIndexes supplies, for each subscription, the indexes of the chunks to publish, in order
+     * @param fetch begins fetching a chunk by its index
+     * @param window how many chunks to fetch ahead of the chunk to be published next, within demand
+     */
+    ChunkPublisher(Supplier<CompletableFuture<Iterator<Integer>>> chunkIndexes,
+                    IntFunction<CompletableFuture<ByteBuffer>> fetch, int window) {
+        this.chunkIndexes = chunkIndexes;
+        this.fetch = fetch;
+        this.window = window;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        requireNonNull(subscriber, "Subscriber may not be null! (Rule 1.9)");
+        ChunkSubscription subscription = new ChunkSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        chunkIndexes.get().whenComplete(subscription::start);
+    }
+
+    /**
+     * Signals to its subscriber only from {@link #drain()}, which runs on one thread at a time, whichever thread
+     * requested chunks or completed a fetch.
+     */
+    private class ChunkSubscription implements Subscription {
+
+        private final Subscriber<? super ByteBuffer> subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        private final AtomicInteger drains = new AtomicInteger();
+
+        private volatile Iterator<Integer> indexes;
+
+        private volatile Throwable failure;
+
+        private volatile boolean cancelled;
+
+        // touched only while draining
+        private final Queue<CompletableFuture<ByteBuffer>> inFlight = new ArrayDeque<>(window + 1);
+
+        private boolean done;
+
+        ChunkSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start(Iterator<Integer> chunkIndexes, Throwable e) {
+            if (e != null) failure = e instanceof CompletionException ? e.getCause() : e;
+            else indexes = chunkIndexes;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) failure = new IllegalArgumentException("Requested " + n + " chunks! (Rule 3.9)");
+            // saturate at Long.MAX_VALUE, which is effectively unbounded (Rule 3.17)
+            else demand.accumulateAndGet(n, (d, more) -> d + more < 0 ? Long.MAX_VALUE : d + more);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (drains.getAndIncrement() != 0) return;
+            int missed = 1;
+            do {
+                emit();
+                missed = drains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            while (!done) {
+                if (cancelled) {
+                    finish();
+                    return;
+                }
+                if (failure != null) {
+                    finish();
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (indexes == null) return;
+                while (inFlight.size() < Math.min(demand.get(), window + 1) && indexes.hasNext()) {
+                    CompletableFuture<ByteBuffer> chunk = fetch.apply(indexes.next());
+                    inFlight.add(chunk);
+                    chunk.whenComplete((c, e) -> drain());
+                }
+                CompletableFuture<ByteBuffer> next = inFlight.peek();
+                if (next == null) {
+                    if (!indexes.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                if (!next.isDone() || demand.get() == 0) return;
+                inFlight.remove();
+                try {
+                    ByteBuffer chunk = next.join();
+                    demand.decrementAndGet();
+                    subscriber.onNext(chunk);
+                } catch (CompletionException e) {
+                    failure = e.getCause();
+                }
+            }
+        }
+
+        private void finish() {
+            done = true;
+            inFlight.clear();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package edu.si.trellis.query.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * An {@link InputStream} that streams a sequence of chunks one after another, advancing a cursor over them as each is
+ * exhausted. The cost of {@link #read()} and {@link #skip(long)} does not depend on how many chunks there are.
+ * {@link #skip(long)} calls {@code skip} on the underlying chunks before defaulting to using
+ * {@link IOUtils#skip(InputStream, long)}, and {@link #read(byte[], int, int)} also calls
+ * {@code read(byte[], int, int)} on the underlying chunks. This is useful in particular with
+ * {@link ByteArrayInputStream}s, which have very fast {@link ByteArrayInputStream#skip(long)} and
+ * {@link ByteArrayInputStream#read(byte[], int, int)} implementations.
+ * <p>
+ * Not thread-safe!
+ * </p>
+ */
+class ChunkSequenceInputStream extends InputStream {
+
+    private final Iterator<? extends InputStream> chunks;
+
+    /**
+     * The chunk being read, or {@code null} between chunks.
+     */
+    private InputStream current;
+
+    /**
+     * @param chunks the chunks to stream, in order
+     */
+    ChunkSequenceInputStream(Iterator<? extends InputStream> chunks) {
+        this.chunks = chunks;
+    }
+
+    /**
+     * @return the chunk being read, or {@code null} if all chunks have been read
+     */
+    private InputStream current() {
+        if (current == null && chunks.hasNext()) current = chunks.next();
+        return current;
+    }
+
+    private void next() throws IOException {
+        current.close();
+        current = null;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        long toSkip = n;
+        while (toSkip > 0 && current() != null) {
+            toSkip -= current.skip(toSkip);
+            if (toSkip > 0) { // we ran out of bytes to skip from current
+                toSkip -= IOUtils.skip(current, toSkip); // read them instead
+                if (toSkip > 0) next();
+            }
+        }
+        return n - toSkip;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (current() != null) {
+            int take = current.read();
+            if (take != -1) return take;
+            next();
+        }
+        return -1;
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > b.length - offset) throw new IndexOutOfBoundsException();
+        if (length == 0) return 0;
+        while (current() != null) {
+            int read = current.read(b, offset, length);
+            if (read > 0) return read;
+            next(); // we couldn't get any bytes from current
+        }
+        return -1;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return current == null ? 0 : current.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (current != null) next();
+    }
+}
@@ -1,9 +1,15 @@
 package edu.si.trellis.query.binary;
 
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 
 import edu.si.trellis.BinaryWriteConsistency;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
@@ -11,14 +17,28 @@ import javax.inject.Inject;
 import org.apache.commons.rdf.api.IRI;
 
 /**
- * A query that deletes a binary.
+ * A query that deletes a binary. The buckets of a bucketed binary are deleted before the rows that record them, so
+ * that a failed deletion can be retried.
  *
  */
 public class Delete extends BinaryQuery {
 
+    private static final CompletableFuture<Void> DONE = completedFuture(null);
+
+    private static final String LAYOUT_QUERY = "SELECT bucketSize FROM " + BINARY_TABLENAME
+                    + " WHERE identifier = :identifier LIMIT 1;";
+
+    private static final String DELETE_BUCKET_QUERY = "DELETE FROM " + BUCKETED_CHUNK_TABLENAME
+                    + " WHERE identifier = :identifier AND bucket = :bucket;";
+
+    private final PreparedStatement layoutStatement, bucketsStatement, deleteBucketStatement;
+
     @Inject
     public Delete(Session session, @BinaryWriteConsistency ConsistencyLevel consistency) {
         super(session, "DELETE FROM " + BINARY_TABLENAME + " WHERE identifier = :identifier;", consistency);
+        this.layoutStatement = session.prepare(LAYOUT_QUERY).setConsistencyLevel(consistency);
+        this.bucketsStatement = session.prepare(BUCKETS_QUERY).setConsistencyLevel(consistency);
+        this.deleteBucketStatement = session.prepare(DELETE_BUCKET_QUERY).setConsistencyLevel(consistency);
     }
 
     /**
@@ -26,6 +46,18 @@ public class Delete extends BinaryQuery {
      * @return whether and when it has been deleted
      */
     public CompletableFuture<Void> execute(IRI id) {
-        return executeWrite(preparedStatement().bind().set("identifier", id, IRI.class));
+        return executeRead(layoutStatement.bind().set("identifier", id, IRI.class)).thenCompose(rows -> {
+            Row row = rows.one();
+            if (row == null || row.isNull("bucketSize")) return DONE;
+            int bucketSize = row.getInt("bucketSize");
+            return executeRead(bucketsStatement.bind().set("identifier", id, IRI.class))
+                            .thenCompose(buckets -> deleteBuckets(id, buckets(buckets, bucketSize)));
+        }).thenCompose(dummy -> executeWrite(preparedStatement().bind().set("identifier", id, IRI.class)));
+    }
+
+    private CompletableFuture<Void> deleteBuckets(IRI id, List<Integer> buckets) {
+        return allOf(buckets.stream().map(bucket -> executeWrite(deleteBucketStatement.bind()
+                        .set("identifier", id, IRI.class).setInt("bucket", bucket)))
+                        .toArray(CompletableFuture<?>[]::new));
     }
 }
@@ -0,0 +1,32 @@
+package edu.si.trellis.query.binary;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.Session;
+
+import edu.si.trellis.BinaryWriteConsistency;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Inject;
+
+/**
+ * Deletes the content of a shared chunk as of a given time, so that the content cannot be deleted by any purge that
+ * began before it was last stored.
+ */
+public class DeleteSharedChunk extends BinaryQuery {
+
+    @Inject
+    public DeleteSharedChunk(Session session, @BinaryWriteConsistency ConsistencyLevel consistency) {
+        super(session, "DELETE FROM " + SHARED_CHUNK_TABLENAME
+                        + " USING TIMESTAMP :timestamp WHERE digest = :digest;", consistency);
+    }
+
+    /**
+     * @param digest the digest of the chunk to delete
+     * @param timestamp the write time of the deletion, in microseconds since the epoch
+     * @return whether and when it has been deleted
+     */
+    public CompletableFuture<Void> execute(ByteBuffer digest, long timestamp) {
+        return executeWrite(preparedStatement().bind().setLong("timestamp", timestamp).setBytes("digest", digest));
+    }
+}
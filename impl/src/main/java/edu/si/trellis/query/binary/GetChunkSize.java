@@ -14,20 +14,21 @@ import javax.inject.Inject;
 import org.apache.commons.rdf.api.IRI;
 
 /**
- * A query to retrieve the chunk size metadata for a binary.
+ * A query to retrieve the chunk size and summary metadata for a binary.
  *
  */
 public class GetChunkSize extends BinaryQuery {
 
     @Inject
     public GetChunkSize(Session session, @BinaryReadConsistency ConsistencyLevel consistency) {
-        super(session, "SELECT chunkSize FROM " + BINARY_TABLENAME + " WHERE identifier = :identifier LIMIT 1;",
-                        consistency);
+        super(session, "SELECT chunkSize, totalSize, chunkCount, digests, bucketSize FROM " + BINARY_TABLENAME
+                        + " WHERE identifier = :identifier LIMIT 1;", consistency);
     }
 
     /**
      * @param id the {@link IRI} of the binary to retrieve
-     * @return a {@link Row} with the chunk size for this binary
+     * @return a {@link Row} with the chunk size for this binary, its size, chunk count and digests if they were
+     *         recorded, and its bucket size if it is bucketed
      */
     public CompletableFuture<Row> execute(IRI id) {
         return executeRead(preparedStatement().bind().set("identifier", id, IRI.class))
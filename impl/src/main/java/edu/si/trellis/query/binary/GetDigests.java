@@ -0,0 +1,77 @@
+package edu.si.trellis.query.binary;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.stream.Collectors.toList;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+
+import edu.si.trellis.BinaryReadConsistency;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.StreamSupport;
+
+import javax.inject.Inject;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A query that retrieves the chunk digests of a deduplicated binary. Binaries that were not deduplicated are
+ * recognized from their first row, without reading any further.
+ */
+public class GetDigests extends BinaryQuery {
+
+    private static final String DIGESTS_QUERY = "SELECT chunkDigest FROM " + BINARY_TABLENAME
+                    + " WHERE identifier = :identifier;";
+
+    private static final String BUCKETED_DIGESTS_QUERY = "SELECT chunkDigest FROM " + BUCKETED_CHUNK_TABLENAME
+                    + " WHERE identifier = :identifier AND bucket = :bucket;";
+
+    private final PreparedStatement digestsStatement, bucketsStatement, bucketedDigestsStatement;
+
+    @Inject
+    public GetDigests(Session session, @BinaryReadConsistency ConsistencyLevel consistency) {
+        super(session, "SELECT deduplicated, bucketSize FROM " + BINARY_TABLENAME
+                        + " WHERE identifier = :identifier LIMIT 1;", consistency);
+        this.digestsStatement = session.prepare(DIGESTS_QUERY).setConsistencyLevel(consistency);
+        this.bucketsStatement = session.prepare(BUCKETS_QUERY).setConsistencyLevel(consistency);
+        this.bucketedDigestsStatement = session.prepare(BUCKETED_DIGESTS_QUERY).setConsistencyLevel(consistency);
+    }
+
+    /**
+     * @param id an {@link IRI} for a binary
+     * @return the digests of the chunks of that binary, in chunk order, or an empty list if it was not deduplicated
+     */
+    public CompletableFuture<List<ByteBuffer>> execute(IRI id) {
+        return executeRead(preparedStatement().bind().set("identifier", id, IRI.class)).thenCompose(rows -> {
+            Row row = rows.one();
+            if (row == null || !row.getBool("deduplicated")) return completedFuture(emptyList());
+            if (row.isNull("bucketSize"))
+                return executeRead(digestsStatement.bind().set("identifier", id, IRI.class))
+                                .thenApply(GetDigests::digests);
+            int bucketSize = row.getInt("bucketSize");
+            return executeRead(bucketsStatement.bind().set("identifier", id, IRI.class))
+                            .thenCompose(buckets -> bucketedDigests(id, buckets(buckets, bucketSize)));
+        });
+    }
+
+    private CompletableFuture<List<ByteBuffer>> bucketedDigests(IRI id, List<Integer> buckets) {
+        List<CompletableFuture<List<ByteBuffer>>> digests = buckets.stream()
+                        .map(bucket -> executeRead(bucketedDigestsStatement.bind().set("identifier", id, IRI.class)
+                                        .setInt("bucket", bucket)).thenApply(GetDigests::digests))
+                        .collect(toList());
+        return allOf(digests.toArray(new CompletableFuture<?>[0])).thenApply(dummy -> digests.stream()
+                        .flatMap(bucket -> bucket.join().stream()).collect(toList()));
+    }
+
+    private static List<ByteBuffer> digests(ResultSet rows) {
+        return StreamSupport.stream(rows.spliterator(), false).filter(r -> !r.isNull("chunkDigest"))
+                        .map(r -> r.getBytes("chunkDigest")).collect(toList());
+    }
+}
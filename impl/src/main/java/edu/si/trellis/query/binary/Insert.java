@@ -1,11 +1,10 @@
 package edu.si.trellis.query.binary;
 
-import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.Session;
 
 import edu.si.trellis.BinaryWriteConsistency;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
@@ -16,26 +15,33 @@ import org.apache.commons.rdf.api.IRI;
 /**
  * Insert binary data into a table.
  */
-public class Insert extends BinaryQuery implements Executor {
+public class Insert extends BinaryWriteQuery implements Executor {
 
     @Inject
     public Insert(Session session, @BinaryWriteConsistency ConsistencyLevel consistency) {
-        super(session, "INSERT INTO " + BINARY_TABLENAME + " (identifier, chunkSize, chunkIndex, chunk) VALUES "
-                        + "(:identifier, :chunkSize, :chunkIndex, :chunk)", consistency);
+        super(session, "INSERT INTO " + BINARY_TABLENAME
+                        + " (identifier, chunkSize, chunkIndex, chunk, compressed) VALUES "
+                        + "(:identifier, :chunkSize, :chunkIndex, :chunk, :compressed)",
+                        "INSERT INTO " + BUCKETED_CHUNK_TABLENAME
+                                        + " (identifier, bucket, chunkIndex, chunk, compressed) VALUES "
+                                        + "(:identifier, :bucket, :chunkIndex, :chunk, :compressed)",
+                        false, consistency);
     }
 
     /**
      * @param id the {@link IRI} of this binary
      * @param chunkSize size of chunk to use for this binary
+     * @param bucketSize how many chunks make up each bucket of this binary, or 0 to store it in one partition
      * @param chunkIndex which chunk this is
-     * @param chunk the bytes of this chunk
+     * @param chunk the bytes of this chunk, from its position to its limit, which the caller must not modify until
+     *            the returned future completes
+     * @param compressed whether {@code chunk} is compressed
      * @return whether and when it has been inserted
      */
-    public CompletableFuture<Void> execute(IRI id, int chunkSize, int chunkIndex, InputStream chunk) {
-        BoundStatement boundStatement = preparedStatement().bind().set("identifier", id, IRI.class)
-                        .setInt("chunkSize", chunkSize).setInt("chunkIndex", chunkIndex)
-                        .set("chunk", chunk, InputStream.class);
-        return executeWrite(boundStatement);
+    public CompletableFuture<Void> execute(IRI id, int chunkSize, int bucketSize, int chunkIndex, ByteBuffer chunk,
+                    boolean compressed) {
+        return write(id, chunkSize, bucketSize, chunkIndex,
+                        statement -> statement.setBytes("chunk", chunk).setBool("compressed", compressed));
     }
 
     @Override
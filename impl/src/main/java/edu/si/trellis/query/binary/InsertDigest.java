@@ -0,0 +1,42 @@
+package edu.si.trellis.query.binary;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.Session;
+
+import edu.si.trellis.BinaryWriteConsistency;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Inject;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * Records a chunk of a deduplicated binary by the digest of its content, which is stored among the shared chunks. The
+ * binary is marked as deduplicated with its first recorded chunk, or with each of its buckets if it is bucketed.
+ */
+public class InsertDigest extends BinaryWriteQuery {
+
+    @Inject
+    public InsertDigest(Session session, @BinaryWriteConsistency ConsistencyLevel consistency) {
+        super(session, "INSERT INTO " + BINARY_TABLENAME
+                        + " (identifier, chunkSize, chunkIndex, chunkDigest, deduplicated) VALUES "
+                        + "(:identifier, :chunkSize, :chunkIndex, :chunkDigest, true)",
+                        "INSERT INTO " + BUCKETED_CHUNK_TABLENAME
+                                        + " (identifier, bucket, chunkIndex, chunkDigest) VALUES "
+                                        + "(:identifier, :bucket, :chunkIndex, :chunkDigest)",
+                        true, consistency);
+    }
+
+    /**
+     * @param id the {@link IRI} of this binary
+     * @param chunkSize size of chunk to use for this binary
+     * @param bucketSize how many chunks make up each bucket of this binary, or 0 to store it in one partition
+     * @param chunkIndex which chunk this is
+     * @param digest the digest of the content of this chunk
+     * @return whether and when it has been inserted
+     */
+    public CompletableFuture<Void> execute(IRI id, int chunkSize, int bucketSize, int chunkIndex, ByteBuffer digest) {
+        return write(id, chunkSize, bucketSize, chunkIndex, statement -> statement.setBytes("chunkDigest", digest));
+    }
+}
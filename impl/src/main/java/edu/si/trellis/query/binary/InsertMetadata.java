@@ -0,0 +1,37 @@
+package edu.si.trellis.query.binary;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.Session;
+
+import edu.si.trellis.BinaryWriteConsistency;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Inject;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A query that records the summary metadata and digests of a binary once all of its chunks have been inserted.
+ */
+public class InsertMetadata extends BinaryQuery {
+
+    @Inject
+    public InsertMetadata(Session session, @BinaryWriteConsistency ConsistencyLevel consistency) {
+        super(session, "UPDATE " + BINARY_TABLENAME + " SET totalSize = :totalSize, chunkCount = :chunkCount, "
+                        + "digests = :digests WHERE identifier = :identifier;", consistency);
+    }
+
+    /**
+     * @param id the {@link IRI} of this binary
+     * @param size the length of this binary in bytes
+     * @param chunkCount how many chunks this binary comprises
+     * @param digests digests of the content of this binary, by algorithm
+     * @return whether and when it has been recorded
+     */
+    public CompletableFuture<Void> execute(IRI id, long size, int chunkCount, Map<String, ByteBuffer> digests) {
+        return executeWrite(preparedStatement().bind().set("identifier", id, IRI.class).setLong("totalSize", size)
+                        .setInt("chunkCount", chunkCount).setMap("digests", digests, String.class, ByteBuffer.class));
+    }
+}
@@ -0,0 +1,59 @@
+package edu.si.trellis.query.binary;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+
+import edu.si.trellis.BinaryWriteConsistency;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Inject;
+
+/**
+ * Stores the content of a shared chunk under its digest, or checks that it is already stored.
+ */
+public class InsertSharedChunk extends BinaryQuery {
+
+    private static final String EXISTS_QUERY = "SELECT digest FROM " + SHARED_CHUNK_TABLENAME
+                    + " WHERE digest = :digest;";
+
+    private final PreparedStatement existsStatement;
+
+    @Inject
+    public InsertSharedChunk(Session session, @BinaryWriteConsistency ConsistencyLevel consistency) {
+        super(session, "INSERT INTO " + SHARED_CHUNK_TABLENAME + " (digest, chunk, compressed) VALUES "
+                        + "(:digest, :chunk, :compressed)",
+                        consistency);
+        this.existsStatement = session.prepare(EXISTS_QUERY).setConsistencyLevel(consistency);
+    }
+
+    /**
+     * @param digest the digest of {@code chunk}
+     * @param chunk the bytes of this chunk, from its position to its limit, which the caller must not modify until
+     *            the returned future completes
+     * @param compressed whether {@code chunk} is compressed
+     * @return whether and when it has been inserted
+     */
+    public CompletableFuture<Void> execute(ByteBuffer digest, ByteBuffer chunk, boolean compressed) {
+        return executeWrite(preparedStatement().bind().setBytes("digest", digest).setBytes("chunk", chunk)
+                        .setBool("compressed", compressed));
+    }
+
+    /**
+     * Stores a chunk only if no content is found under its digest, which costs a read of one key rather than a write
+     * of the whole chunk when it is already stored.
+     *
+     * @param digest the digest of {@code chunk}
+     * @param chunk the bytes of this chunk, from its position to its limit, which the caller must not modify until
+     *            the returned future completes
+     * @param compressed whether {@code chunk} is compressed
+     * @return whether and when it has been found or inserted
+     */
+    public CompletableFuture<Void> executeIfAbsent(ByteBuffer digest, ByteBuffer chunk, boolean compressed) {
+        return executeRead(existsStatement.bind().setBytes("digest", digest)).thenCompose(
+                        rows -> rows.one() == null ? execute(digest, chunk, compressed) : completedFuture(null));
+    }
+}
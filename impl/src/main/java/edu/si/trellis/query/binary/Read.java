@@ -1,26 +1,35 @@
 package edu.si.trellis.query.binary;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.Session;
 
+import edu.si.trellis.BinaryReadAhead;
 import edu.si.trellis.BinaryReadConsistency;
+import edu.si.trellis.ChunkCache;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
 
 import javax.inject.Inject;
 
 import org.apache.commons.rdf.api.IRI;
+import org.reactivestreams.Publisher;
 
 /**
- * Reads all bytes from a binary to an {@link InputStream}.
+ * Reads all bytes from a binary to an {@link InputStream}, using cached chunks but caching none.
  *
  */
 public class Read extends BinaryReadQuery {
 
     @Inject
-    public Read(Session session, @BinaryReadConsistency ConsistencyLevel consistency) {
-        super(session, "SELECT chunkIndex FROM " + BINARY_TABLENAME + " WHERE identifier = :identifier;", consistency);
+    public Read(Session session, @BinaryReadConsistency ConsistencyLevel consistency,
+                    @BinaryReadAhead int readAhead, ChunkCache cache) {
+        super(session, "SELECT chunkIndex FROM " + BINARY_TABLENAME + " WHERE identifier = :identifier;", consistency,
+                        readAhead, cache, false);
     }
 
     /**
@@ -34,4 +43,39 @@ public class Read extends BinaryReadQuery {
         BoundStatement bound = preparedStatement().bind().set("identifier", id, IRI.class);
         return retrieve(id, bound);
     }
+
+    /**
+     * @param id the {@link IRI} for a binary
+     * @param chunkCount how many chunks that binary comprises
+     * @param bucketSize how many chunks make up each bucket of that binary, or 0 if it is stored in one partition
+     * @return An {@link InputStream} of bytes as requested. The {@code skip} method of this {@code InputStream} is
+     *         guaranteed to skip as many bytes as asked.
+     * 
+     * @see BinaryReadQuery#retrieve(IRI, int, java.util.Iterator)
+     */
+    public InputStream execute(IRI id, int chunkCount, int bucketSize) {
+        return retrieve(id, bucketSize, IntStream.range(0, chunkCount).iterator());
+    }
+
+    /**
+     * @param id the {@link IRI} for a binary
+     * @return A {@link Publisher} of the chunks of that binary, which first looks up which chunks there are
+     * 
+     * @see BinaryReadQuery#publish(IRI, int, java.util.function.Supplier)
+     */
+    public Publisher<ByteBuffer> publish(IRI id) {
+        return publish(id, 0, () -> chunkIndexes(id, preparedStatement().bind().set("identifier", id, IRI.class)));
+    }
+
+    /**
+     * @param id the {@link IRI} for a binary
+     * @param chunkCount how many chunks that binary comprises
+     * @param bucketSize how many chunks make up each bucket of that binary, or 0 if it is stored in one partition
+     * @return A {@link Publisher} of the chunks of that binary
+     * 
+     * @see BinaryReadQuery#publish(IRI, int, java.util.function.Supplier)
+     */
+    public Publisher<ByteBuffer> publish(IRI id, int chunkCount, int bucketSize) {
+        return publish(id, bucketSize, () -> completedFuture(IntStream.range(0, chunkCount).iterator()));
+    }
 }
@@ -0,0 +1,68 @@
+package edu.si.trellis.query.binary;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+
+/**
+ * Supplies the chunks of a binary as {@link InputStream}s, keeping a window of asynchronous fetches in flight ahead of
+ * the chunk being read. No more than {@code window + 1} chunks are held in memory on behalf of a reader. With a window
+ * of 0, each chunk is fetched only when it is reached.
+ * <p>
+ * Not thread-safe!
+ * </p>
+ */
+class ReadAheadChunks implements Iterator<InputStream> {
+
+    private static final Logger log = getLogger(ReadAheadChunks.class);
+
+    private final Iterator<Integer> chunkIndexes;
+
+    private final IntFunction<CompletableFuture<InputStream>> fetch;
+
+    private final int window;
+
+    private final Queue<CompletableFuture<InputStream>> inFlight;
+
+    /**
+     * @param chunkIndexes the indexes of the chunks to supply, in order
+     * @param fetch begins fetching a chunk by its index
+     * @param window how many chunks to fetch ahead of the chunk being read
+     */
+    ReadAheadChunks(Iterator<Integer> chunkIndexes, IntFunction<CompletableFuture<InputStream>> fetch, int window) {
+        this.chunkIndexes = chunkIndexes;
+        this.fetch = fetch;
+        this.window = window;
+        this.inFlight = new ArrayDeque<>(window + 1);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !inFlight.isEmpty() || chunkIndexes.hasNext();
+    }
+
+    @Override
+    public InputStream next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        // the chunk about to be read and a full window after it
+        while (inFlight.size() <= window && chunkIndexes.hasNext()) {
+            log.debug("Fetching ahead chunk {} of window", inFlight.size());
+            inFlight.add(fetch.apply(chunkIndexes.next()));
+        }
+        try {
+            return inFlight.remove().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+}
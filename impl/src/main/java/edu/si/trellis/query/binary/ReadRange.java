@@ -4,25 +4,29 @@ import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.Session;
 
+import edu.si.trellis.BinaryReadAhead;
 import edu.si.trellis.BinaryReadConsistency;
+import edu.si.trellis.ChunkCache;
 
 import java.io.InputStream;
+import java.util.stream.IntStream;
 
 import javax.inject.Inject;
 
 import org.apache.commons.rdf.api.IRI;
 
 /**
- * Reads a range of bytes from a binary to an {@link InputStream}
+ * Reads a range of bytes from a binary to an {@link InputStream}, caching the chunks it reads.
  *
  */
 public class ReadRange extends BinaryReadQuery {
 
     @Inject
-    public ReadRange(Session session, @BinaryReadConsistency ConsistencyLevel consistency) {
+    public ReadRange(Session session, @BinaryReadConsistency ConsistencyLevel consistency,
+                    @BinaryReadAhead int readAhead, ChunkCache cache) {
         super(session, "SELECT chunkIndex FROM " + BINARY_TABLENAME
                         + " WHERE identifier = :identifier and chunkIndex >= :start and chunkIndex <= :end;",
-                        consistency);
+                        consistency, readAhead, cache, true);
     }
 
     /**
@@ -41,4 +45,22 @@ public class ReadRange extends BinaryReadQuery {
                         .setInt("end", last);
         return retrieve(id, bound);
     }
+
+    /**
+     * Reads a range of chunks by index arithmetic alone, without first querying which chunks exist. The chunks are
+     * fetched in parallel, as far as the read-ahead window allows.
+     * 
+     * @param id the {@link IRI} of a binary to read
+     * @param first which chunk to begin reading on
+     * @param last which chunk to end reading on
+     * @param chunkCount how many chunks the binary comprises
+     * @param bucketSize how many chunks make up each bucket of the binary, or 0 if it is stored in one partition
+     * @return An {@link InputStream} of bytes as requested. The {@code skip} method of this {@code InputStream} is
+     *         guaranteed to skip as many bytes as asked.
+     * 
+     * @see BinaryReadQuery#retrieve(IRI, int, java.util.Iterator)
+     */
+    public InputStream execute(IRI id, int first, int last, int chunkCount, int bucketSize) {
+        return retrieve(id, bucketSize, IntStream.rangeClosed(first, Math.min(last, chunkCount - 1)).iterator());
+    }
 }
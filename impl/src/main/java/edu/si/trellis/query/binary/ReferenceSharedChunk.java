@@ -0,0 +1,44 @@
+package edu.si.trellis.query.binary;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+
+import edu.si.trellis.BinaryWriteConsistency;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Inject;
+
+/**
+ * Adds to or removes from the count of references to a shared chunk, and reads back the count that results.
+ */
+public class ReferenceSharedChunk extends BinaryQuery {
+
+    private static final String COUNT_QUERY = "SELECT refs FROM " + SHARED_CHUNK_REFERENCES_TABLENAME
+                    + " WHERE digest = :digest;";
+
+    private final PreparedStatement countStatement;
+
+    @Inject
+    public ReferenceSharedChunk(Session session, @BinaryWriteConsistency ConsistencyLevel consistency) {
+        super(session, "UPDATE " + SHARED_CHUNK_REFERENCES_TABLENAME
+                        + " SET refs = refs + :delta WHERE digest = :digest;", consistency);
+        this.countStatement = session.prepare(COUNT_QUERY).setConsistencyLevel(consistency);
+    }
+
+    /**
+     * @param digest the digest of a shared chunk
+     * @param delta the number of references to add, or a negative number to remove
+     * @return the count of references after this change, which may include concurrent changes
+     */
+    public CompletableFuture<Long> execute(ByteBuffer digest, long delta) {
+        return executeWrite(preparedStatement().bind().setLong("delta", delta).setBytes("digest", digest))
+                        .thenCompose(dummy -> executeRead(countStatement.bind().setBytes("digest", digest)))
+                        .thenApply(rows -> {
+                            Row row = rows.one();
+                            return row == null ? 0L : row.getLong("refs");
+                        });
+    }
+}
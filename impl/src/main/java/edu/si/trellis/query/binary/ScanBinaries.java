@@ -0,0 +1,46 @@
+package edu.si.trellis.query.binary;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.TokenRange;
+
+import edu.si.trellis.BinaryReadConsistency;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A query that scans a range of tokens for binaries, for whole-table work such as garbage collection. Each binary is
+ * found by its first row alone.
+ */
+public class ScanBinaries extends BinaryQuery {
+
+    @Inject
+    public ScanBinaries(Session session, @BinaryReadConsistency ConsistencyLevel consistency) {
+        super(session, "SELECT identifier, WRITETIME(chunkSize) AS written FROM " + BINARY_TABLENAME
+                        + " WHERE token(identifier) > :start AND token(identifier) <= :end PER PARTITION LIMIT 1;",
+                        consistency);
+    }
+
+    /**
+     * @param range a range of tokens that does not wrap around the ring
+     * @return the {@link IRI} of each binary in that range as {@code identifier}, with the time in microseconds at
+     *         which its first chunk was written as {@code written}, paged as it is read
+     */
+    public ResultSet execute(TokenRange range) {
+        return executeSyncRead(preparedStatement().bind().setToken("start", range.getStart()).setToken("end",
+                        range.getEnd()));
+    }
+
+    /**
+     * @param splits into how many pieces to split each range that the cluster reports
+     * @return ranges of tokens that together cover all binaries once
+     */
+    public List<TokenRange> tokenRanges(int splits) {
+        return super.tokenRanges(splits);
+    }
+}
@@ -0,0 +1,33 @@
+package edu.si.trellis.query.rdf;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.Session;
+
+import edu.si.trellis.MutableWriteConsistency;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Inject;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A query to adjust the recorded count of the children of a container.
+ */
+public class AdjustChildCount extends ResourceQuery {
+
+    @Inject
+    public AdjustChildCount(Session session, @MutableWriteConsistency ConsistencyLevel consistency) {
+        super(session, "UPDATE " + CHILD_COUNT_TABLENAME + " SET children = children + :delta"
+                        + " WHERE container = :container ;", consistency);
+    }
+
+    /**
+     * @param container the {@link IRI} of a container
+     * @param delta the change in how many children {@code container} has
+     * @return whether and when the adjustment succeeds
+     */
+    public CompletableFuture<Void> execute(IRI container, long delta) {
+        return executeWrite(preparedStatement().bind().setLong("delta", delta).set("container", container, IRI.class));
+    }
+}
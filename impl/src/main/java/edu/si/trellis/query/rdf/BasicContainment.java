@@ -4,28 +4,44 @@ import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Session;
 
+import edu.si.trellis.ContainmentFetchSize;
 import edu.si.trellis.MutableReadConsistency;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
 import javax.inject.Inject;
 
 import org.apache.commons.rdf.api.IRI;
 
 /**
- * A query to retrieve basic containment information from a materialized view or index table.
+ * A query to retrieve basic containment information from the index table written with each resource. Contained
+ * resources are fetched a page at a time, the next page while the last is consumed, so that no more than two pages are
+ * held however many resources a container has.
  */
 public class BasicContainment extends ResourceQuery {
 
+    private final int fetchSize;
+
     @Inject
-    public BasicContainment(Session session, @MutableReadConsistency ConsistencyLevel consistency) {
+    public BasicContainment(Session session, @MutableReadConsistency ConsistencyLevel consistency,
+                    @ContainmentFetchSize int fetchSize) {
         super(session, "SELECT identifier AS contained FROM " + BASIC_CONTAINMENT_TABLENAME
                         + " WHERE container = :container ;", consistency);
+        if (fetchSize < 1) throw new IllegalArgumentException("Containment fetch size < 1!");
+        this.fetchSize = fetchSize;
     }
 
     /**
      * @param id the {@link IRI} of the container
-     * @return a {@link ResultSet} of the resources contained in {@code id}
+     * @return the resources contained in {@code id}, once the first page of them has arrived
      */
-    public ResultSet execute(IRI id) {
-        return executeSyncRead(preparedStatement().bind().set("container", id, IRI.class));
+    public CompletableFuture<Stream<IRI>> execute(IRI id) {
+        return executeRead(preparedStatement().bind().set("container", id, IRI.class).setFetchSize(fetchSize))
+                        .thenApply(this::contained);
+    }
+
+    private Stream<IRI> contained(ResultSet rows) {
+        return Prefetching.rows(rows, fetchSize).map(row -> row.get("contained", IRI.class));
     }
 }
@@ -0,0 +1,36 @@
+package edu.si.trellis.query.rdf;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+
+import edu.si.trellis.MutableReadConsistency;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Inject;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A query to retrieve the recorded count of the children of a container.
+ */
+public class ChildCount extends ResourceQuery {
+
+    @Inject
+    public ChildCount(Session session, @MutableReadConsistency ConsistencyLevel consistency) {
+        super(session, "SELECT children FROM " + CHILD_COUNT_TABLENAME + " WHERE container = :container ;",
+                        consistency);
+    }
+
+    /**
+     * @param container the {@link IRI} of a container
+     * @return how many children {@code container} is recorded to have
+     */
+    public CompletableFuture<Long> execute(IRI container) {
+        return executeRead(preparedStatement().bind().set("container", container, IRI.class)).thenApply(rows -> {
+            Row row = rows.one();
+            return row == null ? 0L : row.getLong("children");
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package edu.si.trellis.query.rdf;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.TokenRange;
+
+import edu.si.trellis.MutableWriteConsistency;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.RuntimeTrellisException;
+
+/**
+ * A query that scans a range of tokens for resources and copies their containment into the containment table, to
+ * migrate containment that was served by a materialized view. Each copy is written with the timestamp at which the
+ * resource's container was written, so that a resource deleted during the copy is never listed again.
+ */
+public class CopyContainment extends ResourceQuery {
+
+    private static final String INSERT_CONTAINMENT_QUERY = "INSERT INTO " + BASIC_CONTAINMENT_TABLENAME
+                    + " (container, identifier) VALUES (:container, :identifier) USING TIMESTAMP :written;";
+
+    private final PreparedStatement insertContainmentStatement;
+
+    @Inject
+    public CopyContainment(Session session, @MutableWriteConsistency ConsistencyLevel consistency) {
+        super(session, "SELECT identifier, container, WRITETIME(container) AS written FROM " + MUTABLE_TABLENAME
+                        + " WHERE token(identifier) > :start AND token(identifier) <= :end;", consistency);
+        this.insertContainmentStatement = session.prepare(INSERT_CONTAINMENT_QUERY);
+    }
+
+    /**
+     * @param range a range of tokens that does not wrap around the ring
+     * @param inFlight the most copies to write at once
+     * @return how many resources in that range had their containment copied
+     * @throws InterruptedException if interrupted while waiting for copies to complete
+     */
+    public long execute(TokenRange range, int inFlight) throws InterruptedException {
+        Semaphore permits = new Semaphore(inFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long copied = 0;
+        for (Row row : executeSyncRead(preparedStatement().bind().setToken("start", range.getStart())
+                        .setToken("end", range.getEnd()))) {
+            if (row.isNull("container")) continue;
+            permits.acquire();
+            if (failure.get() != null) {
+                permits.release();
+                break;
+            }
+            executeWrite(insertContainmentStatement.bind()
+                            .set("container", row.get("container", IRI.class), IRI.class)
+                            .set("identifier", row.get("identifier", IRI.class), IRI.class)
+                            .setLong("written", row.getLong("written"))).whenComplete((dummy, e) -> {
+                                if (e != null) failure.compareAndSet(null, e);
+                                permits.release();
+                            });
+            copied++;
+        }
+        permits.acquire(inFlight);
+        if (failure.get() != null) throw new RuntimeTrellisException("Failed to copy containment!", failure.get());
+        return copied;
+    }
+
+    /**
+     * @param splits into how many pieces to split each range that the cluster reports
+     * @return ranges of tokens that together cover all resources once
+     */
+    public List<TokenRange> tokenRanges(int splits) {
+        return super.tokenRanges(splits);
+    }
+}
@@ -1,9 +1,17 @@
 package edu.si.trellis.query.rdf;
 
+import static com.datastax.driver.core.BatchStatement.Type.LOGGED;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 
 import edu.si.trellis.MutableWriteConsistency;
+
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
@@ -11,20 +19,41 @@ import javax.inject.Inject;
 import org.apache.commons.rdf.api.IRI;
 
 /**
- * A query to delete a resource.
+ * A query to delete a resource, together with its containment, if it has a container.
  */
 public class Delete extends ResourceQuery {
 
+    private static final String CONTAINER_QUERY = "SELECT container FROM " + MUTABLE_TABLENAME
+                    + " WHERE identifier = :identifier ;";
+
+    private static final String DELETE_CONTAINMENT_QUERY = "DELETE FROM " + BASIC_CONTAINMENT_TABLENAME
+                    + " WHERE container = :container AND identifier = :identifier ;";
+
+    private final PreparedStatement containerStatement, deleteContainmentStatement;
+
     @Inject
     public Delete(Session session, @MutableWriteConsistency ConsistencyLevel consistency) {
         super(session, "DELETE FROM " + MUTABLE_TABLENAME + " WHERE identifier = :identifier ;", consistency);
+        this.containerStatement = session.prepare(CONTAINER_QUERY).setConsistencyLevel(consistency);
+        this.deleteContainmentStatement = session.prepare(DELETE_CONTAINMENT_QUERY);
     }
 
     /**
      * @param id the {@link IRI} of the resource to delete
-     * @return whether and when it has been deleted
+     * @return whether and when it has been deleted, with the container from which it was removed, if it existed and had
+     *         a container
      */
-    public CompletableFuture<Void> execute(IRI id) {
-        return executeWrite(preparedStatement().bind().set("identifier", id, IRI.class));
+    public CompletableFuture<Optional<IRI>> execute(IRI id) {
+        BoundStatement delete = preparedStatement().bind().set("identifier", id, IRI.class);
+        // the container is read as recorded, so that the containment removed is the containment written
+        return executeRead(containerStatement.bind().set("identifier", id, IRI.class)).thenCompose(rows -> {
+            Row row = rows.one();
+            if (row == null || row.isNull("container"))
+                return executeWrite(delete).thenApply(dummy -> Optional.<IRI> empty());
+            IRI container = row.get("container", IRI.class);
+            return executeWrite(new BatchStatement(LOGGED).add(delete).add(deleteContainmentStatement.bind()
+                            .set("container", container, IRI.class).set("identifier", id, IRI.class)))
+                                            .thenApply(dummy -> Optional.of(container));
+        });
     }
 }
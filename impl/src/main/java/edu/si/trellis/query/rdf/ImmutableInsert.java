@@ -1,9 +1,16 @@
 package edu.si.trellis.query.rdf;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 
+import edu.si.trellis.ImmutableBucketSize;
 import edu.si.trellis.MutableWriteConsistency;
+import edu.si.trellis.RdfThrift;
+
 import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 
@@ -13,14 +20,34 @@ import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.IRI;
 
 /**
- * A query to insert immutable data about a resource into Cassandra.
+ * A query to insert immutable data about a resource into Cassandra, either into one partition for the resource or,
+ * if a bucket size is configured, into a partition for the bucket of time in which it is inserted.
  */
 public class ImmutableInsert extends ResourceQuery {
 
+    private static final String INDEX_BUCKET_QUERY = "INSERT INTO " + IMMUTABLE_BUCKET_INDEX_TABLENAME
+                    + " (identifier, bucket) VALUES (:identifier, :bucket);";
+
+    private final long bucketMillis;
+
+    private final PreparedStatement indexBucketStatement;
+
     @Inject
-    public ImmutableInsert(Session session, @MutableWriteConsistency ConsistencyLevel consistency) {
-        super(session, "INSERT INTO " + IMMUTABLE_TABLENAME + " (identifier, quads, created) VALUES (?,?,?)",
-                        consistency);
+    public ImmutableInsert(Session session, @MutableWriteConsistency ConsistencyLevel consistency,
+                    @RdfThrift boolean thrift, @ImmutableBucketSize long bucketSize) {
+        super(session, insertQuery(thrift, bucketSize > 0), consistency);
+        if (bucketSize < 0) throw new IllegalArgumentException("Immutable bucket size < 0!");
+        this.bucketMillis = SECONDS.toMillis(bucketSize);
+        this.indexBucketStatement = bucketSize > 0
+                        ? session.prepare(INDEX_BUCKET_QUERY).setConsistencyLevel(consistency) : null;
+    }
+
+    private static String insertQuery(boolean thrift, boolean bucketed) {
+        // each insertion is a new row, so only the column for the chosen encoding is written
+        String column = thrift ? "thriftQuads" : "quads";
+        if (bucketed) return "INSERT INTO " + IMMUTABLE_BUCKETS_TABLENAME + " (identifier, bucket, " + column
+                        + ", created) VALUES (?,?,?,?)";
+        return "INSERT INTO " + IMMUTABLE_TABLENAME + " (identifier, " + column + ", created) VALUES (?,?,?)";
     }
 
     /**
@@ -30,6 +57,12 @@ public class ImmutableInsert extends ResourceQuery {
      * @return whether and when the insertion succeeds
      */
     public CompletableFuture<Void> execute(IRI id, Dataset data, Instant time) {
-        return executeWrite(preparedStatement().bind(id, data, time));
+        if (bucketMillis == 0) return executeWrite(preparedStatement().bind(id, data, time));
+        long millis = time.toEpochMilli();
+        Instant bucket = Instant.ofEpochMilli(millis - Math.floorMod(millis, bucketMillis));
+        // the bucket is indexed first, so that no data is recorded where it cannot be found
+        BoundStatement index = indexBucketStatement.bind().set("identifier", id, IRI.class).set("bucket", bucket,
+                        Instant.class);
+        return executeWrite(index).thenCompose(dummy -> executeWrite(preparedStatement().bind(id, bucket, data, time)));
     }
 }
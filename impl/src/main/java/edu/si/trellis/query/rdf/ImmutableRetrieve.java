@@ -1,10 +1,17 @@
 package edu.si.trellis.query.rdf;
 
+import static java.util.stream.Stream.concat;
+
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Session;
 
+import edu.si.trellis.ImmutableFetchSize;
 import edu.si.trellis.MutableReadConsistency;
 
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -13,20 +20,50 @@ import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Quad;
 
 /**
- * A query to retrieve immutable data about a resource from Cassandra.
+ * A query to retrieve immutable data about a resource from Cassandra, from its own partition and from whatever buckets
+ * of time have been indexed for it. Rows are fetched a page at a time, and each bucket only once the bucket before it
+ * has been consumed, so that no more than two pages are held however much immutable data a resource has.
  */
 public class ImmutableRetrieve extends ResourceQuery {
 
+    private static final String BUCKETS_QUERY = "SELECT bucket FROM " + IMMUTABLE_BUCKET_INDEX_TABLENAME
+                    + " WHERE identifier = :identifier ;";
+
+    private static final String BUCKET_QUERY = "SELECT quads, thriftQuads FROM " + IMMUTABLE_BUCKETS_TABLENAME
+                    + " WHERE identifier = :identifier AND bucket = :bucket ;";
+
+    private final PreparedStatement bucketsStatement, bucketStatement;
+
+    private final int fetchSize;
+
     @Inject
-    public ImmutableRetrieve(Session session, @MutableReadConsistency ConsistencyLevel consistency) {
-        super(session, "SELECT quads FROM " + IMMUTABLE_TABLENAME + "  WHERE identifier = :identifier ;", consistency);
+    public ImmutableRetrieve(Session session, @MutableReadConsistency ConsistencyLevel consistency,
+                    @ImmutableFetchSize int fetchSize) {
+        super(session, "SELECT quads, thriftQuads FROM " + IMMUTABLE_TABLENAME + "  WHERE identifier = :identifier ;",
+                        consistency);
+        if (fetchSize < 1) throw new IllegalArgumentException("Immutable fetch size < 1!");
+        this.fetchSize = fetchSize;
+        this.bucketsStatement = session.prepare(BUCKETS_QUERY).setConsistencyLevel(consistency);
+        this.bucketStatement = session.prepare(BUCKET_QUERY).setConsistencyLevel(consistency);
     }
 
     /**
      * @param id the {@link IRI} of the resource, the immutable data of which is to be retrieved
-     * @return the RDF retrieved
+     * @return the RDF retrieved, once it has begun to arrive
      */
-    public Stream<Quad> execute(IRI id) {
-        return quads(preparedStatement().bind().set("identifier", id, IRI.class));
+    public CompletableFuture<Stream<Quad>> execute(IRI id) {
+        CompletableFuture<ResultSet> unbucketed = executeRead(
+                        preparedStatement().bind().set("identifier", id, IRI.class).setFetchSize(fetchSize));
+        CompletableFuture<ResultSet> buckets = executeRead(
+                        bucketsStatement.bind().set("identifier", id, IRI.class).setFetchSize(fetchSize));
+        return unbucketed.thenCombine(buckets, (rows, bucketRows) -> concat(quads(rows, fetchSize),
+                        bucketed(id, bucketRows)));
+    }
+
+    private Stream<Quad> bucketed(IRI id, ResultSet buckets) {
+        return Prefetching.rows(buckets, fetchSize).map(row -> row.get("bucket", Instant.class))
+                        .flatMap(bucket -> quads(executeSyncRead(bucketStatement.bind()
+                                        .set("identifier", id, IRI.class).set("bucket", bucket, Instant.class)
+                                        .setFetchSize(fetchSize)), fetchSize));
     }
 }
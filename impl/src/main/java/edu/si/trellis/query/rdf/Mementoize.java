@@ -6,6 +6,8 @@ import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.Session;
 
 import edu.si.trellis.MutableWriteConsistency;
+import edu.si.trellis.RdfThrift;
+
 import java.time.Instant;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -20,11 +22,15 @@ import org.apache.commons.rdf.api.IRI;
  */
 public class Mementoize extends ResourceQuery {
 
+    private final boolean thrift;
+
     @Inject
-    public Mementoize(Session session, @MutableWriteConsistency ConsistencyLevel consistency) {
+    public Mementoize(Session session, @MutableWriteConsistency ConsistencyLevel consistency,
+                    @RdfThrift boolean thrift) {
         super(session, "INSERT INTO " + MEMENTO_MUTABLE_TABLENAME
-                        + " (interactionModel, mimeType, container, quads, modified, binaryIdentifier, "
-                        + "created, identifier, mementomodified)" + " VALUES (?,?,?,?,?,?,?,?,?);", consistency);
+                        + " (interactionModel, mimeType, container, quads, thriftQuads, modified, binaryIdentifier, "
+                        + "created, identifier, mementomodified)" + " VALUES (?,?,?,?,?,?,?,?,?,?);", consistency);
+        this.thrift = thrift;
     }
 
     /**
@@ -44,7 +50,7 @@ public class Mementoize extends ResourceQuery {
     public CompletableFuture<Void> execute(IRI ixnModel, String mimeType, IRI container, Dataset data, Instant modified,
                     IRI binaryIdentifier, UUID creation, IRI id) {
         final Instant mementoModified = modified.truncatedTo(SECONDS);
-        return executeWrite(preparedStatement().bind(ixnModel, mimeType, container, data, modified, binaryIdentifier,
-                        creation, id, mementoModified));
+        return executeWrite(preparedStatement().bind(ixnModel, mimeType, container, thrift ? null : data,
+                        thrift ? data : null, modified, binaryIdentifier, creation, id, mementoModified));
     }
 }
@@ -1,9 +1,16 @@
 package edu.si.trellis.query.rdf;
 
+import static com.datastax.driver.core.BatchStatement.Type.LOGGED;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 
 import edu.si.trellis.MutableWriteConsistency;
+import edu.si.trellis.RdfThrift;
+
 import java.time.Instant;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -14,15 +21,25 @@ import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.IRI;
 
 /**
- * A query to insert mutable data about a resource into Cassandra.
+ * A query to insert mutable data about a resource into Cassandra, together with its containment, if it has a container.
  */
 public class MutableInsert extends ResourceQuery {
 
+    private static final String INSERT_CONTAINMENT_QUERY = "INSERT INTO " + BASIC_CONTAINMENT_TABLENAME
+                    + " (container, identifier) VALUES (:container, :identifier);";
+
+    private final PreparedStatement insertContainmentStatement;
+
+    private final boolean thrift;
+
     @Inject
-    public MutableInsert(Session session, @MutableWriteConsistency ConsistencyLevel consistency) {
-        super(session, "INSERT INTO " + MUTABLE_TABLENAME
-                        + " (interactionModel, mimeType, container, quads, modified, binaryIdentifier, created, identifier)"
-                        + " VALUES (?,?,?,?,?,?,?,?);", consistency);
+    public MutableInsert(Session session, @MutableWriteConsistency ConsistencyLevel consistency,
+                    @RdfThrift boolean thrift) {
+        super(session, "INSERT INTO " + MUTABLE_TABLENAME + " (interactionModel, mimeType, container, quads, "
+                        + "thriftQuads, modified, binaryIdentifier, created, identifier) VALUES (?,?,?,?,?,?,?,?,?);",
+                        consistency);
+        this.insertContainmentStatement = session.prepare(INSERT_CONTAINMENT_QUERY);
+        this.thrift = thrift;
     }
 
     /**
@@ -38,7 +55,12 @@ public class MutableInsert extends ResourceQuery {
      */
     public CompletableFuture<Void> execute(IRI ixnModel, String mimeType, IRI container,
                     Dataset data, Instant modified, IRI binaryIdentifier, UUID creation, IRI id) {
-        return executeWrite(preparedStatement().bind(ixnModel, mimeType, container, data, modified,
-                        binaryIdentifier, creation, id));
+        // the unused encoding is cleared, in case this replaces RDF written the other way
+        BoundStatement insert = preparedStatement().bind(ixnModel, mimeType, container, thrift ? null : data,
+                        thrift ? data : null, modified, binaryIdentifier, creation, id);
+        if (container == null) return executeWrite(insert);
+        // a resource and its containment are recorded together or not at all
+        return executeWrite(new BatchStatement(LOGGED).add(insert).add(insertContainmentStatement.bind()
+                        .set("container", container, IRI.class).set("identifier", id, IRI.class)));
     }
 }
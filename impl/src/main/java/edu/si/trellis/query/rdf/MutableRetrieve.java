@@ -5,6 +5,7 @@ import com.datastax.driver.core.Session;
 
 import edu.si.trellis.MutableReadConsistency;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -19,14 +20,15 @@ public class MutableRetrieve extends ResourceQuery {
 
     @Inject
     public MutableRetrieve(Session session, @MutableReadConsistency ConsistencyLevel consistency) {
-        super(session, "SELECT quads FROM " + MUTABLE_TABLENAME + " WHERE identifier = :identifier;", consistency);
+        super(session, "SELECT quads, thriftQuads FROM " + MUTABLE_TABLENAME + " WHERE identifier = :identifier;",
+                        consistency);
     }
 
     /**
      * @param id the {@link IRI} of the resource, the mutable data of which is to be retrieved
-     * @return the RDF retrieved
+     * @return the RDF retrieved, once it has begun to arrive
      */
-    public Stream<Quad> execute(IRI id) {
+    public CompletableFuture<Stream<Quad>> execute(IRI id) {
         return quads(preparedStatement().bind().set("identifier", id, IRI.class));
     }
 }
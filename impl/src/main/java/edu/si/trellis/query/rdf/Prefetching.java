@@ -0,0 +1,58 @@
+package edu.si.trellis.query.rdf;
+
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over rows, beginning to fetch the next page once half of the current page remains, so that no more than two
+ * pages are held however many rows a query returns.
+ */
+final class Prefetching implements Iterator<Row> {
+
+    private final ResultSet rows;
+
+    private final int fetchSize;
+
+    private Prefetching(ResultSet rows, int fetchSize) {
+        this.rows = rows;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @param rows the results of a query, fetched a page at a time
+     * @param fetchSize the size of each page
+     * @return the rows, lazily
+     */
+    static Stream<Row> rows(ResultSet rows, int fetchSize) {
+        Iterator<Row> prefetching = new Prefetching(rows, fetchSize);
+        return StreamSupport.stream(spliteratorUnknownSize(prefetching, ORDERED | NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        prefetch();
+        return !rows.isExhausted();
+    }
+
+    @Override
+    public Row next() {
+        prefetch();
+        Row row = rows.one();
+        if (row == null) throw new NoSuchElementException();
+        return row;
+    }
+
+    private void prefetch() {
+        // a fetch already in flight is not repeated
+        if (rows.getAvailableWithoutFetching() <= fetchSize / 2 && !rows.isFullyFetched()) rows.fetchMoreResults();
+    }
+}
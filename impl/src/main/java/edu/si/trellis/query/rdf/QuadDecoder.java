@@ -0,0 +1,121 @@
+package edu.si.trellis.query.rdf;
+
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static org.apache.jena.riot.Lang.NQUADS;
+import static org.apache.jena.riot.RDFDataMgr.createIteratorQuads;
+import static org.apache.thrift.transport.TTransportException.END_OF_FILE;
+
+import com.datastax.driver.core.utils.Bytes;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.PrefixMap;
+import org.apache.jena.riot.system.PrefixMapFactory;
+import org.apache.jena.riot.thrift.TRDF;
+import org.apache.jena.riot.thrift.ThriftConvert;
+import org.apache.jena.riot.thrift.wire.RDF_StreamRow;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TTransportException;
+
+/**
+ * Decodes recorded RDF straight into a lazy {@link Stream} of Commons RDF quads, parsing each quad only as it is
+ * consumed, without building a dataset or any index.
+ */
+final class QuadDecoder {
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private QuadDecoder() {}
+
+    /**
+     * @param bytes N-Quads
+     * @return the quads therein
+     */
+    static Stream<org.apache.commons.rdf.api.Quad> nQuads(ByteBuffer bytes) {
+        return stream(createIteratorQuads(input(bytes), NQUADS, null));
+    }
+
+    /**
+     * @param bytes RDF Thrift
+     * @return the quads therein
+     */
+    static Stream<org.apache.commons.rdf.api.Quad> thrift(ByteBuffer bytes) {
+        return stream(new ThriftQuads(TRDF.protocol(input(bytes))));
+    }
+
+    private static InputStream input(ByteBuffer bytes) {
+        return new ByteArrayInputStream(Bytes.getArray(bytes));
+    }
+
+    private static Stream<org.apache.commons.rdf.api.Quad> stream(Iterator<Quad> quads) {
+        return StreamSupport.stream(spliteratorUnknownSize(quads, ORDERED | NONNULL), false).map(QuadDecoder::asQuad);
+    }
+
+    /**
+     * Triples and quads in the default graph both become quads with no graph name.
+     */
+    private static org.apache.commons.rdf.api.Quad asQuad(Quad quad) {
+        return rdf.asQuad(quad.isDefaultGraph() || quad.isTriple() ? new Quad(Quad.defaultGraphIRI, quad.asTriple())
+                        : quad);
+    }
+
+    /**
+     * Reads RDF Thrift one row at a time.
+     */
+    private static final class ThriftQuads implements Iterator<Quad> {
+
+        private final TProtocol protocol;
+
+        private final PrefixMap prefixes = PrefixMapFactory.create();
+
+        private Quad next;
+
+        private boolean exhausted;
+
+        ThriftQuads(TProtocol protocol) {
+            this.protocol = protocol;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !exhausted) {
+                RDF_StreamRow row = new RDF_StreamRow();
+                try {
+                    row.read(protocol);
+                } catch (TTransportException e) {
+                    if (e.getType() != END_OF_FILE) throw new RiotException("RDF Thrift is impossible to read!", e);
+                    exhausted = true;
+                    return false;
+                } catch (TException e) {
+                    throw new RiotException("RDF Thrift is impossible to read!", e);
+                }
+                if (row.isSetQuad()) next = ThriftConvert.convert(row.getQuad(), prefixes);
+                else if (row.isSetTriple())
+                    next = new Quad(Quad.defaultGraphIRI, ThriftConvert.convert(row.getTriple(), prefixes));
+                else if (row.isSetPrefixDecl())
+                    prefixes.add(row.getPrefixDecl().getPrefix(), row.getPrefixDecl().getUri());
+            }
+            return next != null;
+        }
+
+        @Override
+        public Quad next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Quad quad = next;
+            next = null;
+            return quad;
+        }
+    }
+}
@@ -1,17 +1,17 @@
 package edu.si.trellis.query.rdf;
 
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
 
 import edu.si.trellis.query.CassandraQuery;
 
-import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.Quad;
 
 /**
@@ -25,15 +25,43 @@ abstract class ResourceQuery extends CassandraQuery {
 
     static final String IMMUTABLE_TABLENAME = "immutabledata";
 
-    static final String BASIC_CONTAINMENT_TABLENAME = "basiccontainment";
+    static final String IMMUTABLE_BUCKETS_TABLENAME = "immutablebuckets";
+
+    static final String IMMUTABLE_BUCKET_INDEX_TABLENAME = "immutablebucketindex";
+
+    static final String BASIC_CONTAINMENT_TABLENAME = "containment";
+
+    static final String CHILD_COUNT_TABLENAME = "childcounts";
 
     ResourceQuery(Session session, String queryString, ConsistencyLevel consistency) {
         super(session, queryString, consistency);
     }
 
-    protected Stream<Quad> quads(final Statement boundStatement) {
-        final Spliterator<Row> rows = executeSyncRead(boundStatement).spliterator();
-        Stream<Dataset> datasets = StreamSupport.stream(rows, false).map(r -> r.get("quads", Dataset.class));
-        return datasets.flatMap(Dataset::stream);
+    /**
+     * @param boundStatement a query for RDF
+     * @return the RDF retrieved, once the first page of rows has arrived
+     */
+    protected CompletableFuture<Stream<Quad>> quads(final Statement boundStatement) {
+        return executeRead(boundStatement).thenApply(
+                        rows -> StreamSupport.stream(rows.spliterator(), false).flatMap(ResourceQuery::decode));
+    }
+
+    /**
+     * @param rows rows of RDF, fetched a page at a time
+     * @param fetchSize the size of each page
+     * @return the RDF, decoded as the rows are consumed
+     */
+    static Stream<Quad> quads(ResultSet rows, int fetchSize) {
+        return Prefetching.rows(rows, fetchSize).flatMap(ResourceQuery::decode);
+    }
+
+    /**
+     * A row records its RDF in either {@code quads}, as N-Quads, or {@code thriftQuads}, as RDF Thrift, depending on
+     * how it was written, so rows of both kinds may be read together.
+     */
+    private static Stream<Quad> decode(Row row) {
+        if (!row.isNull("thriftQuads")) return QuadDecoder.thrift(row.getBytes("thriftQuads"));
+        if (!row.isNull("quads")) return QuadDecoder.nQuads(row.getBytesUnsafe("quads"));
+        return Stream.empty();
     }
 }
@@ -0,0 +1,51 @@
+package edu.si.trellis.query.rdf;
+
+import static java.util.stream.Stream.concat;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.TokenRange;
+
+import edu.si.trellis.MutableReadConsistency;
+
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.inject.Inject;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A query that scans a range of tokens for the binaries referenced by resources and their Mementos.
+ */
+public class ScanBinaryReferences extends ResourceQuery {
+
+    private static final String SCAN_MEMENTOS_QUERY = "SELECT binaryIdentifier FROM " + MEMENTO_MUTABLE_TABLENAME
+                    + " WHERE token(identifier) > :start AND token(identifier) <= :end;";
+
+    private final PreparedStatement scanMementosStatement;
+
+    @Inject
+    public ScanBinaryReferences(Session session, @MutableReadConsistency ConsistencyLevel consistency) {
+        super(session, "SELECT binaryIdentifier FROM " + MUTABLE_TABLENAME
+                        + " WHERE token(identifier) > :start AND token(identifier) <= :end;", consistency);
+        this.scanMementosStatement = session.prepare(SCAN_MEMENTOS_QUERY).setConsistencyLevel(consistency);
+    }
+
+    /**
+     * @param range a range of tokens that does not wrap around the ring
+     * @return the {@link IRI}s of the binaries referenced by resources or Mementos in that range, paged as they are
+     *         read, with repeats
+     */
+    public Stream<IRI> execute(TokenRange range) {
+        return concat(binaryIdentifiers(preparedStatement(), range), binaryIdentifiers(scanMementosStatement, range));
+    }
+
+    private Stream<IRI> binaryIdentifiers(PreparedStatement statement, TokenRange range) {
+        BoundStatement bound = statement.bind().setToken("start", range.getStart()).setToken("end", range.getEnd());
+        return StreamSupport.stream(executeSyncRead(bound).spliterator(), false)
+                        .filter(r -> !r.isNull("binaryIdentifier")).map(r -> r.get("binaryIdentifier", IRI.class));
+    }
+}
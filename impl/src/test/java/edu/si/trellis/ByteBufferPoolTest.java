@@ -0,0 +1,60 @@
+package edu.si.trellis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class ByteBufferPoolTest {
+
+    @Test
+    void shouldReuseReleasedBuffers() {
+        ByteBufferPool pool = new ByteBufferPool(1, Long.MAX_VALUE);
+        ByteBuffer buffer = pool.acquire(10);
+        assertEquals(10, buffer.capacity(), "Got buffer of wrong capacity!");
+        buffer.put((byte) 1).flip();
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire(10);
+        assertSame(buffer, reused, "Did not reuse released buffer!");
+        assertEquals(0, reused.position(), "Reused buffer was not cleared!");
+        assertEquals(10, reused.limit(), "Reused buffer was not cleared!");
+    }
+
+    @Test
+    void shouldKeepCapacitiesApart() {
+        ByteBufferPool pool = new ByteBufferPool(1, Long.MAX_VALUE);
+        ByteBuffer buffer = pool.acquire(10);
+        pool.release(buffer);
+        assertEquals(20, pool.acquire(20).capacity(), "Got buffer of wrong capacity!");
+        assertSame(buffer, pool.acquire(10), "Did not reuse released buffer!");
+    }
+
+    @Test
+    void shouldRetainBoundedIdleBuffers() {
+        ByteBufferPool pool = new ByteBufferPool(1, Long.MAX_VALUE);
+        ByteBuffer first = pool.acquire(10), second = pool.acquire(10);
+        pool.release(first);
+        pool.release(second);
+        assertSame(first, pool.acquire(10), "Did not reuse released buffer!");
+        assertNotSame(second, pool.acquire(10), "Retained too many idle buffers!");
+    }
+
+    @Test
+    void shouldRetainBoundedIdleBytes() {
+        ByteBufferPool pool = new ByteBufferPool(2, 24);
+        ByteBuffer first = pool.acquire(10), second = pool.acquire(10), third = pool.acquire(5);
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertNotSame(third, pool.acquire(5), "Retained too many idle bytes!");
+        assertSame(first, pool.acquire(10), "Did not reuse released buffer within bound!");
+        assertSame(second, pool.acquire(10), "Did not reuse released buffer within bound!");
+        ByteBuffer fourth = pool.acquire(20);
+        pool.release(fourth);
+        assertSame(fourth, pool.acquire(20), "Did not free idle bytes once buffers were reused!");
+    }
+}
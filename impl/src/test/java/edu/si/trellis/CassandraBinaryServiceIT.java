@@ -4,7 +4,10 @@ import static edu.si.trellis.CassandraBinaryService.CASSANDRA_CHUNK_HEADER_NAME;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.UUID.randomUUID;
 import static org.apache.commons.io.IOUtils.contentEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -13,18 +16,28 @@ import static org.trellisldp.api.BinaryMetadata.builder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.rdf.api.IRI;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.trellisldp.api.Binary;
 import org.trellisldp.api.RuntimeTrellisException;
@@ -47,6 +60,9 @@ class CassandraBinaryServiceIT extends CassandraServiceIT {
             assertEquals(content, reply);
         }
 
+        CassandraBinary binary = (CassandraBinary) connection.binaryService.get(id).join();
+        assertEquals(Optional.of((long) content.length()), binary.getSize(), "Recorded wrong size!");
+
         try (InputStream got = connection.binaryService.get(id).join().getContent(5, 11).toCompletableFuture().join()) {
             String reply = IOUtils.toString(got, UTF_8);
             assertEquals(content.subSequence(5, 12), reply);
@@ -85,6 +101,124 @@ class CassandraBinaryServiceIT extends CassandraServiceIT {
             String digest = DigestUtils.md5Hex(content);
             assertEquals(md5sum, digest);
         }
+
+        Optional<byte[]> recorded = connection.binaryService.getDigest(id, "MD5").join();
+        assertEquals(md5sum, Hex.encodeHexString(recorded.get()), "Wrong digest recorded!");
+        try (InputStream testData = new FileInputStream("src/test/resources/test.jpg")) {
+            assertArrayEquals(DigestUtils.sha256(testData), connection.binaryService.getDigest(id, "SHA-256").join()
+                            .get(), "Wrong digest recorded!");
+        }
+    }
+
+    @Test
+    void spreadContentAcrossBuckets() throws IOException {
+        IRI id = createIRI();
+        byte[] bytes;
+        try (FileInputStream testData = new FileInputStream("src/test/resources/test.jpg")) {
+            bytes = IOUtils.toByteArray(testData);
+        }
+        connection.binaryService.setContent(builder(id).build(), new ByteArrayInputStream(bytes)).join();
+
+        // a range across the boundary between the first two buckets
+        int from = 1024 * 1024 - 10, to = 1024 * 1024 + 10;
+        Binary binary = connection.binaryService.get(id).join();
+        try (InputStream content = binary.getContent(from, to).toCompletableFuture().join()) {
+            assertArrayEquals(Arrays.copyOfRange(bytes, from, to + 1), IOUtils.toByteArray(content),
+                            "Didn't retrieve correct range!");
+        }
+
+        connection.binaryService.purgeContent(id).join();
+        CompletableFuture<Binary> purged = connection.binaryService.get(id);
+        assertThrows(CompletionException.class, purged::join, "Purged binary is still present!");
+    }
+
+    @Test
+    void readSinglePartitionContent() throws IOException {
+        IRI id = createIRI();
+        try (FileInputStream testData = new FileInputStream("src/test/resources/test.jpg")) {
+            connection.singlePartitionBinaryService.setContent(builder(id).build(), testData).join();
+        }
+        Binary binary = connection.binaryService.get(id).join();
+        try (InputStream testData = new FileInputStream("src/test/resources/test.jpg");
+             InputStream content = binary.getContent().toCompletableFuture().join()) {
+            assertTrue(contentEquals(testData, content), "Didn't retrieve correct content!");
+        }
+        connection.binaryService.purgeContent(id).join();
+    }
+
+    @Test
+    void cacheChunks() throws IOException {
+        IRI id = createIRI();
+        try (FileInputStream testData = new FileInputStream("src/test/resources/test.jpg")) {
+            connection.binaryService.setContent(builder(id).build(), testData).join();
+        }
+        Binary binary = connection.binaryService.get(id).join();
+        try (InputStream content = binary.getContent().toCompletableFuture().join()) {
+            IOUtils.consume(content);
+        }
+        assertNull(connection.chunkCache.get(id, 0), "Reading a whole binary filled the cache!");
+
+        long misses = connection.chunkCache.missCount();
+        try (InputStream content = binary.getContent(0, 10).toCompletableFuture().join()) {
+            IOUtils.consume(content);
+        }
+        assertTrue(connection.chunkCache.missCount() > misses, "First range read didn't go to Cassandra!");
+
+        long hits = connection.chunkCache.hitCount();
+        misses = connection.chunkCache.missCount();
+        try (InputStream testData = new FileInputStream("src/test/resources/test.jpg");
+             InputStream content = binary.getContent().toCompletableFuture().join()) {
+            assertTrue(contentEquals(testData, content), "Didn't retrieve correct content from cache!");
+        }
+        assertTrue(connection.chunkCache.hitCount() > hits, "Second read didn't use the cache!");
+        assertEquals(misses, connection.chunkCache.missCount(), "Second read went to Cassandra!");
+
+        connection.binaryService.purgeContent(id).join();
+        assertNull(connection.chunkCache.get(id, 0), "Purged binary is still cached!");
+    }
+
+    @Test
+    void publishContent() throws IOException {
+        IRI id = createIRI();
+        try (FileInputStream testData = new FileInputStream("src/test/resources/test.jpg")) {
+            connection.binaryService.setContent(builder(id).build(), testData).join();
+        }
+        CassandraBinary binary = (CassandraBinary) connection.binaryService.get(id).join();
+        ByteArrayOutputStream published = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        binary.getContentPublisher().subscribe(new Subscriber<ByteBuffer>() {
+
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer chunk) {
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                published.write(bytes, 0, bytes.length);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+        try (InputStream testData = new FileInputStream("src/test/resources/test.jpg")) {
+            assertTrue(contentEquals(testData, new ByteArrayInputStream(published.toByteArray())),
+                            "Didn't publish correct content!");
+        }
     }
 
     @Test
@@ -124,6 +258,84 @@ class CassandraBinaryServiceIT extends CassandraServiceIT {
         }
     }
 
+    @Test
+    void deduplicateSharedContent() throws IOException {
+        IRI id1 = createIRI(), id2 = createIRI();
+        for (IRI id : new IRI[] { id1, id2 })
+            try (FileInputStream testData = new FileInputStream("src/test/resources/test.jpg")) {
+                connection.deduplicatingBinaryService.setContent(builder(id).build(), testData).join();
+            }
+
+        connection.deduplicatingBinaryService.purgeContent(id1).join();
+
+        Binary binary = connection.deduplicatingBinaryService.get(id2).join();
+        try (InputStream testData = new FileInputStream("src/test/resources/test.jpg");
+             InputStream content = binary.getContent().toCompletableFuture().join()) {
+            assertTrue(contentEquals(testData, content), "Shared content was lost with another binary!");
+        }
+        try (InputStream content = binary.getContent(5, 11).toCompletableFuture().join();
+             InputStream testData = new FileInputStream("src/test/resources/test.jpg")) {
+            IOUtils.skipFully(testData, 5);
+            assertTrue(contentEquals(new BoundedInputStream(testData, 7), content), "Didn't retrieve correct range!");
+        }
+        connection.deduplicatingBinaryService.purgeContent(id2).join();
+    }
+
+    @Test
+    void deduplicateRepeatedChunks() throws IOException {
+        IRI id = createIRI();
+        // identical chunks, several in flight at once
+        byte[] zeros = new byte[64 * 1024];
+        Map<String, List<String>> hints = ImmutableMap.of(CASSANDRA_CHUNK_HEADER_NAME, ImmutableList.of("1024"));
+        connection.deduplicatingBinaryService.setContent(builder(id).hints(hints).build(),
+                        new ByteArrayInputStream(zeros)).join();
+
+        Binary binary = connection.deduplicatingBinaryService.get(id).join();
+        try (InputStream content = binary.getContent().toCompletableFuture().join()) {
+            assertArrayEquals(zeros, IOUtils.toByteArray(content), "Repeated chunks were lost!");
+        }
+        connection.deduplicatingBinaryService.purgeContent(id).join();
+    }
+
+    @Test
+    void deduplicateContentAfterLastReferenceIsPurged() throws IOException {
+        IRI id1 = createIRI(), id2 = createIRI();
+        byte[] content = "content stored, purged and stored again".getBytes(UTF_8);
+        connection.deduplicatingBinaryService.setContent(builder(id1).build(), new ByteArrayInputStream(content))
+                        .join();
+        connection.deduplicatingBinaryService.purgeContent(id1).join();
+        connection.deduplicatingBinaryService.setContent(builder(id2).build(), new ByteArrayInputStream(content))
+                        .join();
+
+        Binary binary = connection.deduplicatingBinaryService.get(id2).join();
+        try (InputStream got = binary.getContent().toCompletableFuture().join()) {
+            assertArrayEquals(content, IOUtils.toByteArray(got), "Content wasn't stored again!");
+        }
+        connection.deduplicatingBinaryService.purgeContent(id2).join();
+    }
+
+    @Test
+    void compressTextContent() throws IOException {
+        IRI id = createIRI();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 * 1024 * 1024; i++) text.append("Line ").append(i).append(" of some text\n");
+        byte[] content = text.toString().getBytes(UTF_8);
+        connection.compressingBinaryService.setContent(builder(id).mimeType("text/plain").build(),
+                        new ByteArrayInputStream(content)).join();
+
+        Binary binary = connection.compressingBinaryService.get(id).join();
+        try (InputStream got = binary.getContent().toCompletableFuture().join()) {
+            assertTrue(contentEquals(new ByteArrayInputStream(content), got), "Didn't retrieve correct content!");
+        }
+        // a range that crosses from one compressed chunk into the next
+        int from = 1024 * 1024 - 10, to = 1024 * 1024 + 10;
+        try (InputStream got = binary.getContent(from, to).toCompletableFuture().join()) {
+            assertTrue(contentEquals(new ByteArrayInputStream(content, from, to - from + 1), got),
+                            "Didn't retrieve correct range!");
+        }
+        connection.compressingBinaryService.purgeContent(id).join();
+    }
+
     private IRI createIRI() {
         return rdfFactory.createIRI("http://example.com/" + randomUUID());
     }
@@ -0,0 +1,329 @@
+package edu.si.trellis;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.trellisldp.api.BinaryMetadata.builder;
+
+import edu.si.trellis.query.binary.Delete;
+import edu.si.trellis.query.binary.DeleteSharedChunk;
+import edu.si.trellis.query.binary.GetChunkSize;
+import edu.si.trellis.query.binary.GetDigests;
+import edu.si.trellis.query.binary.Insert;
+import edu.si.trellis.query.binary.InsertDigest;
+import edu.si.trellis.query.binary.InsertMetadata;
+import edu.si.trellis.query.binary.InsertSharedChunk;
+import edu.si.trellis.query.binary.Read;
+import edu.si.trellis.query.binary.ReadRange;
+import edu.si.trellis.query.binary.ReferenceSharedChunk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.trellisldp.api.IdentifierService;
+
+@ExtendWith(MockitoExtension.class)
+class CassandraBinaryServiceTest {
+
+    private final RDF factory = new SimpleRDF();
+
+    private final IRI testId = factory.createIRI("urn:test");
+
+    private final int testChunkSize = 3;
+
+    @Mock
+    private IdentifierService mockIdService;
+
+    @Mock
+    private GetChunkSize mockGet;
+
+    @Mock
+    private Insert mockInsert;
+
+    @Mock
+    private InsertMetadata mockInsertMetadata;
+
+    @Mock
+    private InsertDigest mockInsertDigest;
+
+    @Mock
+    private InsertSharedChunk mockInsertSharedChunk;
+
+    @Mock
+    private ReferenceSharedChunk mockReferenceSharedChunk;
+
+    @Mock
+    private GetDigests mockGetDigests;
+
+    @Mock
+    private DeleteSharedChunk mockDeleteSharedChunk;
+
+    @Mock
+    private Delete mockDelete;
+
+    @Mock
+    private Read mockRead;
+
+    @Mock
+    private ReadRange mockReadRange;
+
+    @Mock
+    private ChunkCache mockCache;
+
+    private CassandraBinaryService testService;
+
+    @BeforeEach
+    void runInsertsInline() {
+        lenient().doAnswer(inv -> {
+            inv.<Runnable> getArgument(0).run();
+            return null;
+        }).when(mockInsert).execute(any(Runnable.class));
+        testService = service(false);
+    }
+
+    private CassandraBinaryService service(boolean deduplicate) {
+        return service(new ChunkSizePolicy(testChunkSize, 1, testChunkSize), deduplicate, false);
+    }
+
+    private CassandraBinaryService service(ChunkSizePolicy chunkSizes, boolean deduplicate, boolean compression) {
+        return service(chunkSizes, deduplicate, compression, 0);
+    }
+
+    private CassandraBinaryService service(ChunkSizePolicy chunkSizes, boolean deduplicate, boolean compression,
+                    long partitionSize) {
+        return new CassandraBinaryService(mockIdService, chunkSizes, 2, deduplicate, compression, partitionSize,
+                        mockGet, mockInsert, mockInsertMetadata, mockInsertDigest, mockInsertSharedChunk,
+                        mockReferenceSharedChunk, mockGetDigests, mockDeleteSharedChunk, mockDelete, mockRead,
+                        mockReadRange, mockCache);
+    }
+
+    @Test
+    void shouldRecordEveryChunk() {
+        when(mockInsert.execute(eq(testId), eq(testChunkSize), eq(0), anyInt(), any(ByteBuffer.class), eq(false)))
+                        .thenReturn(completedFuture(null));
+        when(mockInsertMetadata.execute(eq(testId), eq(8L), eq(3), anyMap()))
+                        .thenReturn(completedFuture(null));
+
+        testService.setContent(builder(testId).build(), content("abcdefgh")).join();
+
+        verify(mockInsert).execute(eq(testId), eq(testChunkSize), eq(0), eq(0), any(ByteBuffer.class), eq(false));
+        verify(mockInsert).execute(eq(testId), eq(testChunkSize), eq(0), eq(1), any(ByteBuffer.class), eq(false));
+        verify(mockInsert).execute(eq(testId), eq(testChunkSize), eq(0), eq(2), any(ByteBuffer.class), eq(false));
+        verify(mockInsert, never()).execute(eq(testId), eq(testChunkSize), eq(0), eq(3), any(ByteBuffer.class),
+                        anyBoolean());
+        ByteBuffer sha256 = ByteBuffer.wrap(sha256("abcdefgh"));
+        verify(mockInsertMetadata).execute(eq(testId), eq(8L), eq(3),
+                        argThat(digests -> sha256.equals(digests.get("SHA-256")) && digests.containsKey("MD5")));
+        verify(mockDelete, never()).execute(testId);
+        verify(mockCache, times(2)).invalidate(testId);
+    }
+
+    @Test
+    void shouldSpreadChunksAcrossBuckets() {
+        CassandraBinaryService bucketing = service(new ChunkSizePolicy(testChunkSize, 1, testChunkSize), false, false,
+                        2 * testChunkSize);
+        when(mockInsert.execute(eq(testId), eq(testChunkSize), eq(2), anyInt(), any(ByteBuffer.class), eq(false)))
+                        .thenReturn(completedFuture(null));
+        when(mockInsertMetadata.execute(eq(testId), eq(8L), eq(3), anyMap())).thenReturn(completedFuture(null));
+
+        bucketing.setContent(builder(testId).build(), content("abcdefgh")).join();
+
+        for (int chunkIndex = 0; chunkIndex < 3; chunkIndex++)
+            verify(mockInsert).execute(eq(testId), eq(testChunkSize), eq(2), eq(chunkIndex), any(ByteBuffer.class),
+                            eq(false));
+    }
+
+    @Test
+    void shouldNotCompressCompressedMediaType() {
+        String repetitive = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+        ChunkSizePolicy chunkSizes = new ChunkSizePolicy(repetitive.length(), 1, repetitive.length());
+        CassandraBinaryService compressing = service(chunkSizes, false, true);
+        when(mockInsert.execute(eq(testId), eq(repetitive.length()), eq(0), anyInt(), any(ByteBuffer.class),
+                        anyBoolean())).thenReturn(completedFuture(null));
+        when(mockInsertMetadata.execute(eq(testId), eq((long) repetitive.length()), eq(2), anyMap()))
+                        .thenReturn(completedFuture(null));
+
+        compressing.setContent(builder(testId).mimeType("text/plain").build(), content(repetitive)).join();
+        verify(mockInsert).execute(eq(testId), eq(repetitive.length()), eq(0), eq(0), any(ByteBuffer.class), eq(true));
+
+        compressing.setContent(builder(testId).mimeType("image/jpeg").build(), content(repetitive)).join();
+        verify(mockInsert).execute(eq(testId), eq(repetitive.length()), eq(0), eq(0), any(ByteBuffer.class), eq(false));
+    }
+
+    @Test
+    void shouldSizeChunksByContentLength() {
+        CassandraBinaryService adaptive = service(new ChunkSizePolicy(1024, 16, 1024), false, false);
+        when(mockInsert.execute(eq(testId), eq(64), eq(0), anyInt(), any(ByteBuffer.class), eq(false)))
+                        .thenReturn(completedFuture(null));
+        when(mockInsertMetadata.execute(eq(testId), eq(5L), eq(1), anyMap()))
+                        .thenReturn(completedFuture(null));
+
+        Map<String, List<String>> hints = singletonMap("Content-Length", singletonList("4096"));
+        adaptive.setContent(builder(testId).hints(hints).build(), content("abcde")).join();
+        verify(mockInsert).execute(eq(testId), eq(64), eq(0), eq(0), any(ByteBuffer.class), eq(false));
+    }
+
+    @Test
+    void shouldNotShrinkChunksBelowMinimumForShortHint() {
+        CassandraBinaryService adaptive = service(new ChunkSizePolicy(1024, 16, 1024), false, false);
+        when(mockInsert.execute(eq(testId), eq(16), eq(0), anyInt(), any(ByteBuffer.class), eq(false)))
+                        .thenReturn(completedFuture(null));
+        when(mockInsertMetadata.execute(eq(testId), eq(40L), eq(3), anyMap()))
+                        .thenReturn(completedFuture(null));
+
+        // a hint far shorter than the stream, as of an encoded length
+        Map<String, List<String>> hints = singletonMap("Content-Length", singletonList("1"));
+        adaptive.setContent(builder(testId).hints(hints).build(), content("abcdefghijklmnopqrstuvwxyzabcdefghijklmn"))
+                        .join();
+        verify(mockInsert).execute(eq(testId), eq(16), eq(0), eq(2), any(ByteBuffer.class), eq(false));
+    }
+
+    @Test
+    void shouldBoundRequestedChunkSize() {
+        when(mockInsert.execute(eq(testId), eq(testChunkSize), eq(0), anyInt(), any(ByteBuffer.class), eq(false)))
+                        .thenReturn(completedFuture(null));
+        when(mockInsertMetadata.execute(eq(testId), eq(5L), eq(2), anyMap())).thenReturn(completedFuture(null));
+
+        Map<String, List<String>> hints = singletonMap(CassandraBinaryService.CASSANDRA_CHUNK_HEADER_NAME,
+                        singletonList(Long.toString(Long.MAX_VALUE)));
+        testService.setContent(builder(testId).hints(hints).build(), content("abcde")).join();
+        verify(mockInsert).execute(eq(testId), eq(testChunkSize), eq(0), eq(1), any(ByteBuffer.class), eq(false));
+    }
+
+    @Test
+    void shouldPurgeAfterFailedChunk() {
+        RuntimeException failure = new RuntimeException("Expected");
+        when(mockInsert.execute(eq(testId), eq(testChunkSize), eq(0), anyInt(), any(ByteBuffer.class), eq(false)))
+                        .thenAnswer(inv -> inv.<Integer> getArgument(2) == 1 ? failed(failure) : completedFuture(null));
+        when(mockGetDigests.execute(testId)).thenReturn(completedFuture(emptyList()));
+        when(mockDelete.execute(testId)).thenReturn(completedFuture(null));
+
+        CompletableFuture<Void> result = testService.setContent(builder(testId).build(), content("abcdefghijklmn"));
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertSame(failure, e.getCause(), "Upload failed for the wrong reason!");
+        verify(mockDelete).execute(testId);
+        verify(mockInsertMetadata, never()).execute(any(), anyLong(), anyInt(), anyMap());
+    }
+
+    @Test
+    void shouldPurgeAfterFailedRead() {
+        IOException failure = new IOException("Expected");
+        InputStream failing = new SequenceInputStream(content("abcdef"), new InputStream() {
+
+            @Override
+            public int read() throws IOException {
+                throw failure;
+            }
+        });
+        when(mockInsert.execute(eq(testId), eq(testChunkSize), eq(0), anyInt(), any(ByteBuffer.class), eq(false)))
+                        .thenReturn(completedFuture(null));
+        when(mockGetDigests.execute(testId)).thenReturn(completedFuture(emptyList()));
+        when(mockDelete.execute(testId)).thenReturn(completedFuture(null));
+
+        CompletableFuture<Void> result = testService.setContent(builder(testId).build(), failing);
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertSame(failure, e.getCause(), "Upload failed for the wrong reason!");
+        verify(mockInsert, times(2)).execute(eq(testId), eq(testChunkSize), eq(0), anyInt(), any(ByteBuffer.class),
+                        eq(false));
+        verify(mockDelete).execute(testId);
+        verify(mockInsertMetadata, never()).execute(any(), anyLong(), anyInt(), anyMap());
+    }
+
+    @Test
+    void shouldStoreReferencedChunkOnlyIfAbsent() {
+        ByteBuffer abc = ByteBuffer.wrap(sha256("abc")), empty = ByteBuffer.wrap(sha256(""));
+        when(mockReferenceSharedChunk.execute(abc, 1)).thenReturn(completedFuture(1L), completedFuture(2L));
+        when(mockReferenceSharedChunk.execute(empty, 1)).thenReturn(completedFuture(3L));
+        when(mockInsertSharedChunk.execute(eq(abc), any(ByteBuffer.class), eq(false)))
+                        .thenReturn(completedFuture(null));
+        when(mockInsertSharedChunk.executeIfAbsent(any(ByteBuffer.class), any(ByteBuffer.class), eq(false)))
+                        .thenReturn(completedFuture(null));
+        when(mockInsertDigest.execute(eq(testId), eq(testChunkSize), eq(0), anyInt(), any(ByteBuffer.class)))
+                        .thenReturn(completedFuture(null));
+        when(mockInsertMetadata.execute(eq(testId), eq(6L), eq(3), anyMap()))
+                        .thenReturn(completedFuture(null));
+
+        service(true).setContent(builder(testId).build(), content("abcabc")).join();
+
+        // content is stored again only by its sole reference, lest a purge be deleting it
+        verify(mockInsertSharedChunk).execute(eq(abc), any(ByteBuffer.class), eq(false));
+        verify(mockInsertSharedChunk).executeIfAbsent(eq(abc), any(ByteBuffer.class), eq(false));
+        verify(mockInsertSharedChunk).executeIfAbsent(eq(empty), any(ByteBuffer.class), eq(false));
+        verify(mockInsertSharedChunk, never()).execute(eq(empty), any(ByteBuffer.class), anyBoolean());
+        verify(mockInsertDigest).execute(testId, testChunkSize, 0, 0, abc);
+        verify(mockInsertDigest).execute(testId, testChunkSize, 0, 1, abc);
+        verify(mockInsertDigest).execute(testId, testChunkSize, 0, 2, empty);
+        verify(mockInsert, never()).execute(eq(testId), eq(testChunkSize), eq(0), anyInt(), any(ByteBuffer.class),
+                        anyBoolean());
+    }
+
+    @Test
+    void shouldDeleteSharedChunkWithLastReference() {
+        ByteBuffer shared = ByteBuffer.wrap(sha256("abc")), unshared = ByteBuffer.wrap(sha256("def"));
+        when(mockGetDigests.execute(testId)).thenReturn(completedFuture(asList(shared, unshared)));
+        when(mockDelete.execute(testId)).thenReturn(completedFuture(null));
+        when(mockReferenceSharedChunk.execute(shared, -1)).thenReturn(completedFuture(1L));
+        when(mockReferenceSharedChunk.execute(unshared, -1)).thenReturn(completedFuture(0L));
+        when(mockDeleteSharedChunk.execute(eq(unshared), anyLong())).thenReturn(completedFuture(null));
+
+        testService.purgeContent(testId).join();
+
+        verify(mockDelete).execute(testId);
+        verify(mockCache).invalidate(testId);
+        verify(mockDeleteSharedChunk, never()).execute(eq(shared), anyLong());
+        verify(mockDeleteSharedChunk).execute(eq(unshared), anyLong());
+    }
+
+    private static byte[] sha256(String content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content.getBytes(UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static InputStream content(String content) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+
+    private static CompletableFuture<Void> failed(Throwable t) {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(t);
+        return failed;
+    }
+}
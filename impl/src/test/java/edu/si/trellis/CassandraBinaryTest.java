@@ -1,8 +1,12 @@
 package edu.si.trellis;
 
+import static edu.si.trellis.CassandraBinary.builder;
 import static java.util.Arrays.copyOf;
 import static java.util.Arrays.copyOfRange;
+import static java.util.Collections.singletonMap;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -15,7 +19,9 @@ import edu.si.trellis.query.binary.ReadRange;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Optional;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.RDF;
 import org.apache.commons.rdf.simple.SimpleRDF;
@@ -79,6 +85,76 @@ class CassandraBinaryTest {
         assertSame(mockInputStream1, result, "Got wrong InputStream!");
     }
 
+    @Test
+    void contentWithRecordedChunkCount() {
+        when(mockRead.execute(testId, 3, 0)).thenReturn(mockInputStream1);
+        CassandraBinary testCassandraBinary = builder(testId, mockRead, mockReadRange, testChunkSize).size(25L)
+                        .chunkCount(3).build();
+
+        final InputStream result = testCassandraBinary.getContent().toCompletableFuture().join();
+        assertSame(mockInputStream1, result, "Got wrong InputStream!");
+        assertEquals(Optional.of(25L), testCassandraBinary.getSize(), "Got wrong size!");
+    }
+
+    @Test
+    void rangePastRecordedSize() throws IOException {
+        byte[] bytes = new byte[] { 1, 2, 3, 4, 5 };
+        when(mockReadRange.execute(testId, 2, 2, 3, 0)).thenReturn(new ByteArrayInputStream(bytes));
+        CassandraBinary testCassandraBinary = builder(testId, mockRead, mockReadRange, testChunkSize).size(25L)
+                        .chunkCount(3).build();
+
+        try (InputStream content = testCassandraBinary.getContent(20, 100).toCompletableFuture().join()) {
+            assertArrayEquals(bytes, IOUtils.toByteArray(content), "Wrong bytes!");
+        }
+        try (InputStream content = testCassandraBinary.getContent(30, 100).toCompletableFuture().join()) {
+            assertEquals(-1, content.read(), "Got bytes from past the end of the binary!");
+        }
+    }
+
+    @Test
+    void bucketedContent() {
+        when(mockRead.execute(testId, 3, 2)).thenReturn(mockInputStream1);
+        CassandraBinary testCassandraBinary = builder(testId, mockRead, mockReadRange, testChunkSize).size(25L)
+                        .chunkCount(3).bucketSize(2).build();
+
+        final InputStream result = testCassandraBinary.getContent().toCompletableFuture().join();
+        assertSame(mockInputStream1, result, "Got wrong InputStream!");
+    }
+
+    @Test
+    void rangePast2GB() throws IOException {
+        int chunkLength = 1024 * 1024;
+        long size = 10L * 1024 * 1024 * 1024, from = 5_000_000_000L;
+        byte[] chunk = new byte[chunkLength];
+        for (int i = 0; i < chunkLength; i++)
+            chunk[i] = (byte) i;
+        int chunkIndex = (int) (from / chunkLength), offset = (int) (from % chunkLength);
+        when(mockReadRange.execute(testId, chunkIndex, chunkIndex, 10240, 0))
+                        .thenReturn(new ByteArrayInputStream(chunk));
+        CassandraBinary testCassandraBinary = builder(testId, mockRead, mockReadRange, chunkLength).size(size)
+                        .chunkCount(10240).build();
+
+        try (InputStream content = testCassandraBinary.getContent(from, from + 4).toCompletableFuture().join()) {
+            assertArrayEquals(copyOfRange(chunk, offset, offset + 5), IOUtils.toByteArray(content), "Wrong bytes!");
+        }
+        try (InputStream content = testCassandraBinary.getContent(size, Long.MAX_VALUE).toCompletableFuture()
+                        .join()) {
+            assertEquals(-1, content.read(), "Got bytes from past the end of the binary!");
+        }
+    }
+
+    @Test
+    void recordedDigest() {
+        byte[] digest = new byte[] { 1, 2, 3 };
+        CassandraBinary testCassandraBinary = builder(testId, mockRead, mockReadRange, testChunkSize).size(25L)
+                        .chunkCount(3).digests(singletonMap("SHA-256", digest)).build();
+
+        assertArrayEquals(digest, testCassandraBinary.getDigest("sha-256").get(), "Got wrong digest!");
+        assertFalse(testCassandraBinary.getDigest("MD5").isPresent(), "Got unrecorded digest!");
+        assertFalse(new CassandraBinary(testId, mockRead, mockReadRange, testChunkSize).getDigest("SHA-256")
+                        .isPresent(), "Got unrecorded digest!");
+    }
+
     @Test
     void aBitOfContent() throws IOException {
         byte[] bytes = new byte[] { 1, 2, 3, 4, 5, 6, -1 };
@@ -5,6 +5,7 @@ import static com.datastax.driver.core.ConsistencyLevel.ONE;
 import static edu.si.trellis.DatasetCodec.datasetCodec;
 import static edu.si.trellis.IRICodec.iriCodec;
 import static edu.si.trellis.InputStreamCodec.inputStreamCodec;
+import static edu.si.trellis.ThriftDatasetCodec.thriftDatasetCodec;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import com.datastax.driver.core.*;
@@ -28,22 +29,55 @@ import org.trellisldp.api.IdentifierService;
 class CassandraConnection implements AfterAllCallback, BeforeAllCallback {
 
     private static final String[] CLEANOUT_QUERIES = new String[] { "TRUNCATE metadata ; ", "TRUNCATE mutabledata ; ",
-            "TRUNCATE immutabledata ;", "TRUNCATE binarydata ;", "TRUNCATE mementodata ;" };
+            "TRUNCATE immutabledata ;", "TRUNCATE binarydata ;", "TRUNCATE binarychunks ;", "TRUNCATE sharedchunks ;",
+            "TRUNCATE sharedchunkreferences ;", "TRUNCATE mementodata ;", "TRUNCATE containment ;",
+            "TRUNCATE childcounts ;", "TRUNCATE immutablebuckets ;", "TRUNCATE immutablebucketindex ;" };
 
     private static final ConsistencyLevel testConsistency = ONE;
 
+    private static final int testReadAhead = 2;
+
+    private static final int testWriteAhead = 2;
+
+    private static final long testCacheSize = 16 * 1024 * 1024;
+
+    private static final long testPartitionSize = 1024 * 1024;
+
+    private static final int testContainmentFetchSize = 100;
+
+    private static final int testImmutableFetchSize = 10;
+
+    private static final long testResourceCacheSize = 1000, testResourceCacheExpiry = 60;
+
+    // small chunks may be requested, so that tests can write many chunks quickly
+    private static final ChunkSizePolicy testChunkSizes = new ChunkSizePolicy(1024 * 1024, 1024, 4 * 1024 * 1024);
+
     private static final Logger log = getLogger(CassandraConnection.class);
 
     private static final String keyspace = "trellis";
 
     private Cluster cluster;
 
-    private Session session;
+    Session session;
 
     CassandraResourceService resourceService;
 
+    CassandraResourceService thriftResourceService;
+
     CassandraBinaryService binaryService;
 
+    CassandraBinaryService deduplicatingBinaryService;
+
+    CassandraBinaryService compressingBinaryService;
+
+    CassandraBinaryService singlePartitionBinaryService;
+
+    OrphanedBinarySweeper binarySweeper;
+
+    ContainmentBackfill containmentBackfill;
+
+    ChunkCache chunkCache;
+
     CassandraMementoService mementoService;
 
     private static final String contactAddress = System.getProperty("cassandra.contactAddress", "localhost");
@@ -58,34 +92,69 @@ class CassandraConnection implements AfterAllCallback, BeforeAllCallback {
     public void beforeAll(ExtensionContext context) {
         log.debug("Trying Cassandra connection at: {}:{}", contactAddress, contactPort);
         this.cluster = builder().withoutMetrics().addContactPoint(contactAddress).withPort(contactPort).build();
-        codecRegistry().register(inputStreamCodec, iriCodec, datasetCodec, InstantCodec.instance,
+        codecRegistry().register(inputStreamCodec, iriCodec, datasetCodec, thriftDatasetCodec, InstantCodec.instance,
                         SimpleTimestampCodec.instance);
         QueryLogger queryLogger = QueryLogger.builder().build();
         cluster.register(queryLogger);
         this.session = cluster.connect("trellis");
-        this.resourceService = new CassandraResourceService(new edu.si.trellis.query.rdf.Delete(session, ONE),
-                        new edu.si.trellis.query.rdf.Get(session, ONE),
-                        new edu.si.trellis.query.rdf.ImmutableInsert(session, testConsistency),
-                        new edu.si.trellis.query.rdf.MutableInsert(session, testConsistency),
-                        new edu.si.trellis.query.rdf.Touch(session, testConsistency),
-                        new edu.si.trellis.query.rdf.MutableRetrieve(session, testConsistency),
-                        new edu.si.trellis.query.rdf.ImmutableRetrieve(session, testConsistency),
-                        new edu.si.trellis.query.rdf.BasicContainment(session, testConsistency));
+        this.resourceService = resourceService(false);
         resourceService.initializeRoot();
+        this.thriftResourceService = resourceService(true);
         this.mementoService = new CassandraMementoService(
                         new Mementos(session, testConsistency),
-                        new Mementoize(session, testConsistency),
+                        new Mementoize(session, testConsistency, false),
                         new GetMemento(session, testConsistency),
                         new MementoMutableRetrieve(session, testConsistency),
-                        new edu.si.trellis.query.rdf.ImmutableRetrieve(session, testConsistency),
+                        new edu.si.trellis.query.rdf.ImmutableRetrieve(session, testConsistency,
+                                        testImmutableFetchSize),
                         new GetFirstMemento(session, testConsistency));
-        this.binaryService = new CassandraBinaryService((IdentifierService) null, 1024 * 1024,
+        this.chunkCache = new ChunkCache(testCacheSize);
+        this.binaryService = binaryService(false, false, testPartitionSize, chunkCache);
+        this.deduplicatingBinaryService = binaryService(true, false, testPartitionSize, new ChunkCache(testCacheSize));
+        this.compressingBinaryService = binaryService(false, true, testPartitionSize, new ChunkCache(testCacheSize));
+        this.singlePartitionBinaryService = binaryService(false, false, 0, new ChunkCache(testCacheSize));
+        // no grace period, so that binaries can be swept as soon as they are orphaned
+        this.binarySweeper = new OrphanedBinarySweeper(
+                        new edu.si.trellis.query.binary.ScanBinaries(session, testConsistency),
+                        new edu.si.trellis.query.rdf.ScanBinaryReferences(session, testConsistency), binaryService, 0,
+                        0, 2, 1000);
+        this.containmentBackfill = new ContainmentBackfill(
+                        new edu.si.trellis.query.rdf.CopyContainment(session, testConsistency), false);
+        if (cleanBefore) cleanOut();
+    }
+
+    private CassandraResourceService resourceService(boolean thrift) {
+        ResourceCache cache = new ResourceCache(testResourceCacheSize, testResourceCacheExpiry);
+        return new CassandraResourceService(new edu.si.trellis.query.rdf.Delete(session, ONE),
+                        new edu.si.trellis.query.rdf.Get(session, ONE),
+                        new edu.si.trellis.query.rdf.ImmutableInsert(session, testConsistency, thrift, 0),
+                        new edu.si.trellis.query.rdf.MutableInsert(session, testConsistency, thrift),
+                        new TouchCoalescer(new edu.si.trellis.query.rdf.Touch(session, testConsistency), cache, 0),
+                        new edu.si.trellis.query.rdf.MutableRetrieve(session, testConsistency),
+                        new edu.si.trellis.query.rdf.ImmutableRetrieve(session, testConsistency,
+                                        testImmutableFetchSize),
+                        new edu.si.trellis.query.rdf.BasicContainment(session, testConsistency,
+                                        testContainmentFetchSize),
+                        new edu.si.trellis.query.rdf.ChildCount(session, testConsistency),
+                        new edu.si.trellis.query.rdf.AdjustChildCount(session, testConsistency), cache);
+    }
+
+    private CassandraBinaryService binaryService(boolean deduplicate, boolean compression, long partitionSize,
+                    ChunkCache cache) {
+        return new CassandraBinaryService((IdentifierService) null, testChunkSizes, testWriteAhead, deduplicate,
+                        compression, partitionSize,
                         new edu.si.trellis.query.binary.GetChunkSize(session, testConsistency),
                         new edu.si.trellis.query.binary.Insert(session, testConsistency),
+                        new edu.si.trellis.query.binary.InsertMetadata(session, testConsistency),
+                        new edu.si.trellis.query.binary.InsertDigest(session, testConsistency),
+                        new edu.si.trellis.query.binary.InsertSharedChunk(session, testConsistency),
+                        new edu.si.trellis.query.binary.ReferenceSharedChunk(session, testConsistency),
+                        new edu.si.trellis.query.binary.GetDigests(session, testConsistency),
+                        new edu.si.trellis.query.binary.DeleteSharedChunk(session, testConsistency),
                         new edu.si.trellis.query.binary.Delete(session, testConsistency),
-                        new edu.si.trellis.query.binary.Read(session, testConsistency),
-                        new edu.si.trellis.query.binary.ReadRange(session, testConsistency));
-        if (cleanBefore) cleanOut();
+                        new edu.si.trellis.query.binary.Read(session, testConsistency, testReadAhead, cache),
+                        new edu.si.trellis.query.binary.ReadRange(session, testConsistency, testReadAhead, cache),
+                        cache);
     }
 
     private void cleanOut() {
@@ -1,10 +1,18 @@
 package edu.si.trellis;
 
+import static com.datastax.driver.core.ConsistencyLevel.ONE;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.trellisldp.api.Metadata.builder;
+import static org.trellisldp.vocabulary.LDP.BasicContainer;
+import static org.trellisldp.vocabulary.LDP.PreferContainment;
+import static org.trellisldp.vocabulary.Trellis.PreferAudit;
+
+import edu.si.trellis.query.rdf.ImmutableInsert;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import org.apache.commons.rdf.api.Dataset;
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.Quad;
@@ -51,6 +59,128 @@ class CassandraResourceServiceIT extends CassandraServiceIT implements ResourceS
         assertTrue(modified.compareTo(newModified) < 0);
     }
 
+    @Test
+    void mixedEncodings() {
+        IRI id = createIRI("http://example.com/id/mixed");
+        IRI ixnModel = createIRI("http://example.com/ixnModel");
+        @SuppressWarnings("resource")
+        Dataset quads = rdfFactory.createDataset();
+        Quad quad = rdfFactory.createQuad(id, ixnModel, id, rdfFactory.createLiteral("thrift"));
+        quads.add(quad);
+        Metadata meta = builder(id).interactionModel(ixnModel).container(null).build();
+
+        // written as RDF Thrift, read by a service that writes N-Quads
+        connection.thriftResourceService.create(meta, quads).toCompletableFuture().join();
+        Resource resource = connection.resourceService.get(id).toCompletableFuture().join();
+        assertEquals(quad, resource.stream().findFirst().orElseThrow(() -> new AssertionError("Failed to find quad!")));
+
+        // replaced as N-Quads, which must clear the RDF Thrift
+        @SuppressWarnings("resource")
+        Dataset replacement = rdfFactory.createDataset();
+        Quad nQuad = rdfFactory.createQuad(id, ixnModel, id, rdfFactory.createLiteral("nquads"));
+        replacement.add(nQuad);
+        connection.resourceService.replace(meta, replacement).toCompletableFuture().join();
+        resource = connection.thriftResourceService.get(id).toCompletableFuture().join();
+        assertEquals(1, resource.stream().count(), "Found RDF from both encodings!");
+        assertTrue(resource.stream().anyMatch(nQuad::equals), "Failed to find replacement quad!");
+    }
+
+    @Test
+    void listContainerAcrossPages() {
+        IRI container = createIRI("http://example.com/id/paged");
+        IRI ixnModel = createIRI("http://example.com/ixnModel");
+        connection.resourceService.create(builder(container).interactionModel(BasicContainer).build(), null)
+                        .toCompletableFuture().join();
+        // more children than fit in two pages
+        int children = 250;
+        for (int i = 0; i < children; i++) {
+            Metadata meta = builder(createIRI(container.getIRIString() + "/" + i)).interactionModel(ixnModel)
+                            .container(container).build();
+            connection.resourceService.create(meta, null).toCompletableFuture().join();
+        }
+        Resource resource = connection.resourceService.get(container).toCompletableFuture().join();
+        assertEquals(children, resource.stream(PreferContainment).distinct().count(), "Wrong number of children!");
+        assertEquals(children, resource.stream(PreferContainment).count(), "Listed a child more than once!");
+    }
+
+    @Test
+    void backfillContainment() {
+        IRI container = createIRI("http://example.com/id/backfilled");
+        IRI child = createIRI("http://example.com/id/backfilled/child");
+        IRI ixnModel = createIRI("http://example.com/ixnModel");
+        connection.resourceService.create(builder(container).interactionModel(BasicContainer).build(), null)
+                        .toCompletableFuture().join();
+        // as if the child had been created while containment was served by the materialized view
+        connection.session.execute("INSERT INTO mutabledata (identifier, container, interactionModel) VALUES (?,?,?)",
+                        child.getIRIString(), container.getIRIString(), ixnModel.getIRIString());
+        Resource resource = connection.resourceService.get(container).toCompletableFuture().join();
+        assertEquals(0, resource.stream(PreferContainment).count(), "Child was listed before backfill!");
+
+        assertTrue(connection.containmentBackfill.backfill() > 0, "Backfilled nothing!");
+        assertTrue(resource.stream(PreferContainment).anyMatch(q -> child.equals(q.getObject())),
+                        "Child wasn't backfilled!");
+    }
+
+    @Test
+    void countChildren() {
+        IRI container = createIRI("http://example.com/id/counted");
+        IRI ixnModel = createIRI("http://example.com/ixnModel");
+        connection.resourceService.create(builder(container).interactionModel(BasicContainer).build(), null)
+                        .toCompletableFuture().join();
+        Metadata[] children = new Metadata[3];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = builder(createIRI(container.getIRIString() + "/" + i)).interactionModel(ixnModel)
+                            .container(container).build();
+            connection.resourceService.create(children[i], null).toCompletableFuture().join();
+        }
+        assertEquals(3, childCount(container), "Wrong count after creation!");
+
+        connection.resourceService.replace(children[0], null).toCompletableFuture().join();
+        assertEquals(3, childCount(container), "Replacement changed count!");
+        connection.resourceService.delete(children[1]).toCompletableFuture().join();
+        assertEquals(2, childCount(container), "Wrong count after deletion!");
+
+        // as if an adjustment had been lost
+        connection.session.execute("UPDATE childcounts SET children = children + 5 WHERE container = ?",
+                        container.getIRIString());
+        assertEquals(7, childCount(container), "Drift wasn't recorded!");
+        assertEquals(2, connection.resourceService.reconcileChildCount(container).toCompletableFuture().join(),
+                        "Wrong count of children!");
+        assertEquals(2, childCount(container), "Wrong count after reconciliation!");
+    }
+
+    private long childCount(IRI container) {
+        CassandraResource resource = (CassandraResource) connection.resourceService.get(container)
+                        .toCompletableFuture().join();
+        return resource.getChildCount().join();
+    }
+
+    @Test
+    void bucketedImmutableData() {
+        IRI id = createIRI("http://example.com/id/audited");
+        IRI ixnModel = createIRI("http://example.com/ixnModel");
+        connection.resourceService.create(builder(id).interactionModel(ixnModel).build(), null).toCompletableFuture()
+                        .join();
+        ImmutableInsert hourly = new ImmutableInsert(connection.session, ONE, false, HOURS.toSeconds(1));
+        // more rows than fit in a page, across several buckets
+        Instant start = Instant.now().minus(3, ChronoUnit.HOURS);
+        int rows = 30;
+        for (int i = 0; i < rows; i++) {
+            @SuppressWarnings("resource")
+            Dataset quads = rdfFactory.createDataset();
+            quads.add(rdfFactory.createQuad(PreferAudit, id, ixnModel, rdfFactory.createLiteral(Integer.toString(i))));
+            hourly.execute(id, quads, start.plus(i * 6, ChronoUnit.MINUTES)).join();
+        }
+        // and one row as recorded without buckets
+        @SuppressWarnings("resource")
+        Dataset quads = rdfFactory.createDataset();
+        quads.add(rdfFactory.createQuad(PreferAudit, id, ixnModel, rdfFactory.createLiteral("unbucketed")));
+        connection.resourceService.add(id, quads).toCompletableFuture().join();
+
+        Resource resource = connection.resourceService.get(id).toCompletableFuture().join();
+        assertEquals(rows + 1, resource.stream(PreferAudit).count(), "Wrong number of immutable quads!");
+    }
+
     @Override
     public ResourceService getResourceService() {
         return connection.resourceService;
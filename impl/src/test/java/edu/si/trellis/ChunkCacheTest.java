@@ -0,0 +1,98 @@
+package edu.si.trellis;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+import org.junit.jupiter.api.Test;
+
+class ChunkCacheTest {
+
+    private final RDF factory = new SimpleRDF();
+
+    private final IRI testId = factory.createIRI("urn:test"), otherId = factory.createIRI("urn:other");
+
+    @Test
+    void shouldCacheChunks() throws IOException {
+        ChunkCache cache = new ChunkCache(1024);
+        assertNull(cache.get(testId, 0), "Got chunk from empty cache!");
+        cache.put(testId, 0, bytes("abc"), true, 0);
+
+        ChunkCache.Chunk chunk = cache.get(testId, 0);
+        assertNotNull(chunk, "Chunk wasn't cached!");
+        assertTrue(chunk.isCompressed(), "Lost compression flag!");
+        assertEquals("abc", read(chunk), "Wrong chunk content!");
+        assertEquals("abc", read(chunk), "Chunk can't be read twice!");
+        assertNull(cache.get(testId, 1), "Got wrong chunk!");
+        assertEquals(1, cache.hitCount(), "Wrong hit count!");
+        assertEquals(2, cache.missCount(), "Wrong miss count!");
+    }
+
+    @Test
+    void shouldEvictToBound() {
+        ChunkCache cache = new ChunkCache(5);
+        cache.put(testId, 0, bytes("abc"), false, 0);
+        cache.put(testId, 1, bytes("def"), false, 0);
+        assertNull(cache.get(testId, 0), "Cache exceeded its bound!");
+        assertNotNull(cache.get(testId, 1), "Evicted the wrong chunk!");
+        assertEquals(1, cache.evictionCount(), "Wrong eviction count!");
+    }
+
+    @Test
+    void shouldInvalidateOnlyOneBinary() {
+        ChunkCache cache = new ChunkCache(1024);
+        cache.put(testId, 0, bytes("abc"), false, 0);
+        cache.put(testId, 1, bytes("def"), false, 0);
+        cache.put(otherId, 0, bytes("ghi"), false, 0);
+        cache.invalidate(testId);
+        assertNull(cache.get(testId, 0), "Chunk survived invalidation!");
+        assertNull(cache.get(testId, 1), "Chunk survived invalidation!");
+        assertNotNull(cache.get(otherId, 0), "Invalidated the wrong binary!");
+    }
+
+    @Test
+    void shouldNotCacheChunkRetrievedBeforeInvalidation() {
+        ChunkCache cache = new ChunkCache(1024);
+        long generation = cache.generation(testId);
+        // a write replaces the binary while the old chunk is being retrieved
+        cache.invalidate(testId);
+        cache.put(testId, 0, bytes("old"), false, generation);
+        assertNull(cache.get(testId, 0), "Cached a chunk retrieved before invalidation!");
+
+        cache.put(testId, 0, bytes("new"), false, cache.generation(testId));
+        assertNotNull(cache.get(testId, 0), "Didn't cache a chunk retrieved after invalidation!");
+    }
+
+    @Test
+    void disabledCacheHoldsNothing() throws IOException {
+        ChunkCache cache = new ChunkCache(0);
+        ChunkCache.Chunk chunk = cache.put(testId, 0, bytes("abc"), false, 0);
+        assertFalse(chunk.isCompressed(), "Invented compression flag!");
+        assertEquals("abc", read(chunk), "Wrong chunk content!");
+        assertNull(cache.get(testId, 0), "Disabled cache held a chunk!");
+        assertEquals(0, cache.hitCount() + cache.missCount(), "Disabled cache kept statistics!");
+        assertThrows(IllegalArgumentException.class, () -> new ChunkCache(-1));
+    }
+
+    private static ByteBuffer bytes(String content) {
+        return ByteBuffer.wrap(content.getBytes(UTF_8));
+    }
+
+    private static String read(ChunkCache.Chunk chunk) throws IOException {
+        try (InputStream stream = chunk.stream()) {
+            return IOUtils.toString(stream, UTF_8);
+        }
+    }
+}
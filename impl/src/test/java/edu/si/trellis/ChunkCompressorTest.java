@@ -0,0 +1,73 @@
+package edu.si.trellis;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+class ChunkCompressorTest {
+
+    private final ByteBufferPool pool = new ByteBufferPool(2, Long.MAX_VALUE);
+
+    @Test
+    void shouldCompressRepetitiveChunk() throws IOException {
+        byte[] text = "Lorem ipsum dolor sit amet, lorem ipsum dolor sit amet, lorem ipsum dolor sit amet"
+                        .getBytes(UTF_8);
+        ByteBuffer chunk = chunk(text);
+        try (ChunkCompressor compressor = new ChunkCompressor(pool)) {
+            ByteBuffer compressed = compressor.compress(chunk);
+            assertNotSame(chunk, compressed, "Didn't compress!");
+            assertTrue(compressed.remaining() < text.length, "Compressed chunk is no smaller!");
+            try (InputStream inflated = new InflaterInputStream(new ByteArrayInputStream(compressed.array(),
+                            compressed.arrayOffset(), compressed.remaining()))) {
+                assertEquals(new String(text, UTF_8), IOUtils.toString(inflated, UTF_8), "Wrong chunk content!");
+            }
+        }
+    }
+
+    @Test
+    void shouldLeaveIncompressibleChunk() {
+        byte[] noise = new byte[1024];
+        new Random(0).nextBytes(noise);
+        ByteBuffer chunk = chunk(noise);
+        try (ChunkCompressor compressor = new ChunkCompressor(pool)) {
+            assertSame(chunk, compressor.compress(chunk), "Compressed random bytes!");
+            ByteBuffer empty = chunk(new byte[0]);
+            assertSame(empty, compressor.compress(empty), "Compressed empty chunk!");
+        }
+    }
+
+    @Test
+    void compressibleMediaTypes() {
+        assertTrue(ChunkCompressor.compressible(empty()));
+        assertTrue(ChunkCompressor.compressible(of("text/plain")));
+        assertTrue(ChunkCompressor.compressible(of("image/tiff")));
+        assertTrue(ChunkCompressor.compressible(of("application/xml; charset=UTF-8")));
+        assertFalse(ChunkCompressor.compressible(of("image/jpeg")));
+        assertFalse(ChunkCompressor.compressible(of("Application/ZIP")));
+        assertFalse(ChunkCompressor.compressible(of("video/mp4")));
+        assertFalse(ChunkCompressor.compressible(of("application/epub+zip")));
+    }
+
+    private ByteBuffer chunk(byte[] content) {
+        ByteBuffer chunk = pool.acquire(content.length);
+        chunk.put(content);
+        ((Buffer) chunk).flip();
+        return chunk;
+    }
+}
@@ -0,0 +1,77 @@
+package edu.si.trellis;
+
+import static edu.si.trellis.CassandraBinaryService.CASSANDRA_CHUNK_HEADER_NAME;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.UUID.randomUUID;
+import static org.apache.commons.io.output.NullOutputStream.NULL_OUTPUT_STREAM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.BinaryMetadata.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.rdf.api.IRI;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+
+/**
+ * Sweeps chunk sizes against write and read throughput. Run with {@code -Dbenchmark=true}; the size of binary in MB
+ * may be set with {@code -Dbenchmark.binarySize}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ChunkSizeBenchmarkIT extends CassandraServiceIT {
+
+    private static final Logger log = getLogger(ChunkSizeBenchmarkIT.class);
+
+    private static final int KB = 1024, MB = 1024 * KB;
+
+    private static final int[] CHUNK_SIZES = { 64 * KB, 128 * KB, 256 * KB, 512 * KB, MB, 2 * MB, 4 * MB };
+
+    private static final long BINARY_SIZE = Long.getLong("benchmark.binarySize", 64) * MB;
+
+    private static final int ROUNDS = 3;
+
+    @Test
+    void sweepChunkSizes() throws IOException {
+        // a binary is held in one array, so it must be smaller than 2 GB
+        byte[] content = new byte[Math.toIntExact(BINARY_SIZE)];
+        new Random(0).nextBytes(content);
+        // warm up the connection and the JIT
+        measure(MB, content);
+        for (int chunkSize : CHUNK_SIZES) {
+            long writeNanos = 0, readNanos = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long[] nanos = measure(chunkSize, content);
+                writeNanos += nanos[0];
+                readNanos += nanos[1];
+            }
+            log.info("Chunk size {} KB: write {} MB/s, read {} MB/s", chunkSize / KB, throughput(writeNanos),
+                            throughput(readNanos));
+        }
+    }
+
+    private long[] measure(int chunkSize, byte[] content) throws IOException {
+        IRI id = rdfFactory.createIRI("http://example.com/" + randomUUID());
+        long start = System.nanoTime();
+        connection.binaryService.setContent(builder(id)
+                        .hints(singletonMap(CASSANDRA_CHUNK_HEADER_NAME, singletonList(Integer.toString(chunkSize))))
+                        .build(), new ByteArrayInputStream(content)).join();
+        long written = System.nanoTime();
+        try (InputStream got = connection.binaryService.get(id).join().getContent().toCompletableFuture().join()) {
+            assertEquals(content.length, IOUtils.copyLarge(got, NULL_OUTPUT_STREAM), "Wrong binary length!");
+        }
+        long read = System.nanoTime();
+        connection.binaryService.purgeContent(id).join();
+        return new long[] { written - start, read - written };
+    }
+
+    private static long throughput(long nanos) {
+        return ROUNDS * BINARY_SIZE / MB * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,66 @@
+package edu.si.trellis;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class ChunkSizePolicyTest {
+
+    private static final int KB = 1024, MB = 1024 * KB;
+
+    private final ChunkSizePolicy testPolicy = new ChunkSizePolicy(MB, 256 * KB, 4 * MB);
+
+    @Test
+    void smallBinaryFitsInOneSmallestChunk() {
+        assertEquals(256 * KB, testPolicy.chunkSize(0));
+        assertEquals(256 * KB, testPolicy.chunkSize(10));
+        assertEquals(256 * KB, testPolicy.chunkSize(KB));
+        assertEquals(256 * KB, testPolicy.chunkSize(256 * KB - 1));
+    }
+
+    @Test
+    void mediumBinaryUsesSmallestChunks() {
+        assertEquals(256 * KB, testPolicy.chunkSize(256 * KB));
+        assertEquals(256 * KB, testPolicy.chunkSize(10 * MB));
+    }
+
+    @Test
+    void largeBinarySplitsIntoTargetCount() {
+        assertEquals(2 * MB, testPolicy.chunkSize(100 * MB));
+        assertEquals(MB, testPolicy.chunkSize(ChunkSizePolicy.TARGET_CHUNK_COUNT * MB));
+    }
+
+    @Test
+    void hugeBinaryUsesLargestChunks() {
+        assertEquals(4 * MB, testPolicy.chunkSize(1024L * MB));
+        assertEquals(4 * MB, testPolicy.chunkSize(Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    void contentLengthHint() {
+        assertEquals(256 * KB, testPolicy.chunkSize(singletonMap("content-length", singletonList("10"))));
+        assertEquals(MB, testPolicy.chunkSize(singletonMap("Content-Length", singletonList("ten"))));
+        assertEquals(MB, testPolicy.chunkSize(singletonMap("Content-Length", Arrays.asList("10", "20"))));
+        assertEquals(MB, testPolicy.chunkSize(singletonMap("Other", singletonList("10"))));
+        assertEquals(MB, testPolicy.chunkSize(null));
+    }
+
+    @Test
+    void requestedSizeIsBounded() {
+        assertEquals(512 * KB, testPolicy.bounded(512 * KB));
+        assertEquals(256 * KB, testPolicy.bounded(0));
+        assertEquals(256 * KB, testPolicy.bounded(-1));
+        assertEquals(4 * MB, testPolicy.bounded(Long.MAX_VALUE));
+    }
+
+    @Test
+    void badBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkSizePolicy(MB, 0, MB));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkSizePolicy(MB, 2 * MB, MB));
+    }
+}
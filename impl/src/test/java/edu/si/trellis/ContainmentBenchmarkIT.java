@@ -0,0 +1,97 @@
+package edu.si.trellis;
+
+import static com.datastax.driver.core.BatchStatement.Type.LOGGED;
+import static java.util.UUID.randomUUID;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+
+/**
+ * Compares containment served by a materialized view with containment written to a table in the same batch as each
+ * resource, for write latency and for the latency of listing a container's children, on scratch tables shaped like
+ * {@code mutabledata}. Run with {@code -Dbenchmark=true}; the number of children may be set with
+ * {@code -Dbenchmark.children}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ContainmentBenchmarkIT extends CassandraServiceIT {
+
+    private static final Logger log = getLogger(ContainmentBenchmarkIT.class);
+
+    private static final int CHILDREN = Integer.getInteger("benchmark.children", 10_000);
+
+    private static final int FETCH_SIZE = 5000, ROUNDS = 3;
+
+    private static final String[] SETUP = {
+            "CREATE TABLE IF NOT EXISTS benchviewed (identifier text PRIMARY KEY, container text);",
+            "CREATE MATERIALIZED VIEW IF NOT EXISTS benchview AS SELECT identifier, container FROM benchviewed "
+                            + "WHERE identifier IS NOT NULL AND container IS NOT NULL "
+                            + "PRIMARY KEY ((container), identifier);",
+            "CREATE TABLE IF NOT EXISTS benchindexed (identifier text PRIMARY KEY, container text);",
+            "CREATE TABLE IF NOT EXISTS benchcontainment (container text, identifier text, "
+                            + "PRIMARY KEY ((container), identifier));" };
+
+    private static final String[] TEARDOWN = { "DROP MATERIALIZED VIEW IF EXISTS benchview;",
+            "DROP TABLE IF EXISTS benchviewed;", "DROP TABLE IF EXISTS benchindexed;",
+            "DROP TABLE IF EXISTS benchcontainment;" };
+
+    @BeforeEach
+    void setUp() {
+        for (String cql : SETUP) connection.session.execute(cql);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String cql : TEARDOWN) connection.session.execute(cql);
+    }
+
+    @Test
+    void compareViewWithTable() {
+        PreparedStatement viewed = connection.session
+                        .prepare("INSERT INTO benchviewed (identifier, container) VALUES (?,?);");
+        PreparedStatement indexed = connection.session
+                        .prepare("INSERT INTO benchindexed (identifier, container) VALUES (?,?);");
+        PreparedStatement contained = connection.session
+                        .prepare("INSERT INTO benchcontainment (container, identifier) VALUES (?,?);");
+        PreparedStatement listView = connection.session
+                        .prepare("SELECT identifier FROM benchview WHERE container = ?;");
+        PreparedStatement listTable = connection.session
+                        .prepare("SELECT identifier FROM benchcontainment WHERE container = ?;");
+
+        // warm up the connection and the JIT
+        measure("warm-up", (id, container) -> connection.session.execute(viewed.bind(id, container)), listView);
+        for (int round = 0; round < ROUNDS; round++) {
+            measure("view", (id, container) -> connection.session.execute(viewed.bind(id, container)), listView);
+            measure("table", (id, container) -> connection.session.execute(new BatchStatement(LOGGED)
+                            .add(indexed.bind(id, container)).add(contained.bind(container, id))), listTable);
+        }
+    }
+
+    private void measure(String name, Write write, PreparedStatement list) {
+        String container = "http://example.com/" + randomUUID();
+        long start = System.nanoTime();
+        for (int i = 0; i < CHILDREN; i++)
+            write.execute(container + "/" + i, container);
+        long written = System.nanoTime();
+        ResultSet children = connection.session.execute(list.bind(container).setFetchSize(FETCH_SIZE));
+        long listed = 0;
+        while (children.one() != null)
+            listed++;
+        long read = System.nanoTime();
+        // a view may lag its table, so it may list fewer children than were written
+        log.info("Containment by {}: write {} us per child, list {} ms for {} of {} children", name,
+                        (written - start) / 1000 / CHILDREN, (read - written) / 1_000_000, listed, CHILDREN);
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void execute(String id, String container);
+    }
+}
@@ -0,0 +1,108 @@
+package edu.si.trellis;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.BinaryMetadata.builder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.rdf.api.IRI;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+
+/**
+ * Records and reads back a synthetic binary larger than any {@code int} offset. Run with
+ * {@code -DlargeBinaries=true}; the size of binary in GB may be set with {@code -DlargeBinaries.size}.
+ */
+@EnabledIfSystemProperty(named = "largeBinaries", matches = "true")
+class LargeBinaryIT extends CassandraServiceIT {
+
+    private static final Logger log = getLogger(LargeBinaryIT.class);
+
+    private static final long MB = 1024 * 1024, GB = 1024 * MB;
+
+    private static final long BINARY_SIZE = Long.getLong("largeBinaries.size", 10) * GB;
+
+    @Test
+    void setAndGetLargeContent() throws IOException, NoSuchAlgorithmException {
+        IRI id = rdfFactory.createIRI("http://example.com/" + randomUUID());
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        long start = System.nanoTime();
+        try (InputStream content = new DigestInputStream(new SyntheticInputStream(0, BINARY_SIZE), md5)) {
+            connection.binaryService.setContent(builder(id)
+                            .hints(singletonMap("Content-Length", singletonList(Long.toString(BINARY_SIZE))))
+                            .build(), content).join();
+        }
+        log.info("Wrote {} GB at {} MB/s", BINARY_SIZE / GB, throughput(System.nanoTime() - start));
+
+        CassandraBinary binary = (CassandraBinary) connection.binaryService.get(id).join();
+        assertEquals(Optional.of(BINARY_SIZE), binary.getSize(), "Recorded wrong size!");
+        assertArrayEquals(md5.digest(), connection.binaryService.getDigest(id, "MD5").join().get(),
+                        "Recorded wrong digest!");
+
+        start = System.nanoTime();
+        try (InputStream expected = new SyntheticInputStream(0, BINARY_SIZE);
+             InputStream content = binary.getContent().toCompletableFuture().join()) {
+            assertTrue(IOUtils.contentEquals(expected, content), "Didn't retrieve correct content!");
+        }
+        log.info("Read {} GB at {} MB/s", BINARY_SIZE / GB, throughput(System.nanoTime() - start));
+
+        // a range that spans chunks, beyond any int offset
+        long from = BINARY_SIZE - 3 * GB - 10, to = from + 5 * MB;
+        try (InputStream expected = new SyntheticInputStream(from, to + 1);
+             InputStream content = binary.getContent(from, to).toCompletableFuture().join()) {
+            assertTrue(IOUtils.contentEquals(expected, content), "Didn't retrieve correct range!");
+        }
+
+        connection.binaryService.purgeContent(id).join();
+    }
+
+    private static long throughput(long nanos) {
+        return BINARY_SIZE / MB * 1_000_000_000L / Math.max(nanos, 1);
+    }
+
+    /**
+     * Bytes determined by their offsets, so that any range can be generated again to compare.
+     */
+    private static class SyntheticInputStream extends InputStream {
+
+        private long position;
+
+        private final long end;
+
+        SyntheticInputStream(long from, long end) {
+            this.position = from;
+            this.end = end;
+        }
+
+        private static byte at(long offset) {
+            return (byte) (offset ^ offset >>> 11 ^ offset >>> 23 ^ offset >>> 37);
+        }
+
+        @Override
+        public int read() {
+            return position < end ? at(position++) & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= end) return -1;
+            int count = (int) Math.min(len, end - position);
+            for (int i = 0; i < count; i++)
+                b[off + i] = at(position++);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package edu.si.trellis;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.api.Metadata.builder;
+import static org.trellisldp.vocabulary.LDP.NonRDFSource;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletionException;
+
+import org.apache.commons.rdf.api.IRI;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.BinaryMetadata;
+
+class OrphanedBinarySweeperIT extends CassandraServiceIT {
+
+    private IRI binary(String content) {
+        IRI id = createIRI("http://example.com/binary/" + randomUUID());
+        connection.binaryService.setContent(BinaryMetadata.builder(id).build(),
+                        new ByteArrayInputStream(content.getBytes(UTF_8))).join();
+        return id;
+    }
+
+    @Test
+    void sweepOrphanedBinary() {
+        IRI orphan = binary("orphaned content");
+        IRI referenced = binary("referenced content");
+        IRI resource = createIRI("http://example.com/resource/" + randomUUID());
+        connection.resourceService.create(builder(resource).interactionModel(NonRDFSource)
+                        .binary(BinaryMetadata.builder(referenced).build()).build(), null).toCompletableFuture().join();
+
+        long purged = connection.binarySweeper.binariesPurged();
+        assertTrue(connection.binarySweeper.sweep() > 0, "Didn't purge any binaries!");
+        assertTrue(connection.binarySweeper.binariesPurged() > purged, "Didn't count purges!");
+
+        assertThrows(CompletionException.class, () -> connection.binaryService.get(orphan).join(),
+                        "Orphaned binary wasn't purged!");
+        connection.binaryService.get(referenced).join();
+    }
+}
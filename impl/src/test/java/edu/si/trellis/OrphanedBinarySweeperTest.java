@@ -0,0 +1,112 @@
+package edu.si.trellis;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.nCopies;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.TokenRange;
+
+import edu.si.trellis.query.binary.ScanBinaries;
+import edu.si.trellis.query.rdf.ScanBinaryReferences;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class OrphanedBinarySweeperTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    private final IRI orphan = rdf.createIRI("urn:orphan"), referenced = rdf.createIRI("urn:referenced"),
+                    recent = rdf.createIRI("urn:recent");
+
+    @Mock
+    private ScanBinaries mockScanBinaries;
+
+    @Mock
+    private ScanBinaryReferences mockScanReferences;
+
+    @Mock
+    private CassandraBinaryService mockBinaryService;
+
+    @Mock
+    private ResultSet mockBinaries;
+
+    @BeforeEach
+    void oneRange() {
+        // a single range, which the mocked queries ignore
+        when(mockScanBinaries.tokenRanges(anyInt())).thenReturn(nCopies(1, (TokenRange) null));
+    }
+
+    private Row binary(IRI id, long writtenMillis) {
+        Row row = mock(Row.class);
+        when(row.isNull("written")).thenReturn(false);
+        when(row.getLong("written")).thenReturn(MILLISECONDS.toMicros(writtenMillis));
+        // recent binaries are never identified
+        lenient().when(row.get("identifier", IRI.class)).thenReturn(id);
+        return row;
+    }
+
+    private OrphanedBinarySweeper sweeper() {
+        return new OrphanedBinarySweeper(mockScanBinaries, mockScanReferences, mockBinaryService, 0, DAYS.toSeconds(1),
+                        2, 1000);
+    }
+
+    @Test
+    void shouldPurgeOnlyOldUnreferencedBinaries() {
+        long now = System.currentTimeMillis(), longAgo = now - DAYS.toMillis(2);
+        when(mockBinaries.iterator()).thenReturn(
+                        asList(binary(orphan, longAgo), binary(referenced, longAgo), binary(recent, now)).iterator());
+        when(mockScanBinaries.execute(any())).thenReturn(mockBinaries);
+        when(mockScanReferences.execute(any())).thenReturn(Stream.of(referenced, referenced));
+        when(mockBinaryService.purgeContent(orphan)).thenReturn(completedFuture(null));
+
+        OrphanedBinarySweeper sweeper = sweeper();
+        assertEquals(1, sweeper.sweep(), "Purged wrong number of binaries!");
+
+        verify(mockBinaryService).purgeContent(orphan);
+        verify(mockBinaryService, never()).purgeContent(referenced);
+        verify(mockBinaryService, never()).purgeContent(recent);
+        assertEquals(1, sweeper.sweeps(), "Wrong count of sweeps!");
+        assertEquals(2, sweeper.rangesScanned(), "Wrong count of ranges scanned!");
+        assertEquals(3, sweeper.binariesScanned(), "Wrong count of binaries scanned!");
+        assertEquals(1, sweeper.orphansFound(), "Wrong count of orphans!");
+        assertEquals(1, sweeper.binariesPurged(), "Wrong count of purges!");
+    }
+
+    @Test
+    void shouldCountFailedPurges() {
+        long longAgo = System.currentTimeMillis() - DAYS.toMillis(2);
+        when(mockBinaries.iterator()).thenReturn(asList(binary(orphan, longAgo)).iterator());
+        when(mockScanBinaries.execute(any())).thenReturn(mockBinaries);
+        when(mockScanReferences.execute(any())).thenReturn(Stream.empty());
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new RuntimeException("Expected"));
+        when(mockBinaryService.purgeContent(orphan)).thenReturn(failure);
+
+        OrphanedBinarySweeper sweeper = sweeper();
+        assertEquals(0, sweeper.sweep(), "Counted a failed purge!");
+        assertEquals(1, sweeper.purgeFailures(), "Didn't count a failed purge!");
+    }
+}
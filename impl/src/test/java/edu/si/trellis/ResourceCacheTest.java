@@ -0,0 +1,100 @@
+package edu.si.trellis;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.trellisldp.api.Resource.SpecialResources.MISSING_RESOURCE;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+import org.junit.jupiter.api.Test;
+import org.trellisldp.api.Resource;
+
+class ResourceCacheTest {
+
+    private final RDF factory = new SimpleRDF();
+
+    private final IRI testId = factory.createIRI("urn:test"), otherId = factory.createIRI("urn:other");
+
+    private final Resource resource = mock(Resource.class);
+
+    private final AtomicInteger retrievals = new AtomicInteger();
+
+    private CompletionStage<Resource> retrieve(IRI id) {
+        retrievals.incrementAndGet();
+        return completedFuture(resource);
+    }
+
+    private Resource get(ResourceCache cache, IRI id) {
+        return cache.get(id, this::retrieve).toCompletableFuture().join();
+    }
+
+    @Test
+    void shouldCacheResources() {
+        ResourceCache cache = new ResourceCache(10, 60);
+        assertSame(resource, get(cache, testId), "Retrieved wrong resource!");
+        assertSame(resource, get(cache, testId), "Cached wrong resource!");
+        assertEquals(1, retrievals.get(), "Didn't cache resource!");
+        assertEquals(1, cache.hitCount(), "Wrong hit count!");
+        assertEquals(1, cache.missCount(), "Wrong miss count!");
+    }
+
+    @Test
+    void shouldNotCacheMissingResources() {
+        ResourceCache cache = new ResourceCache(10, 60);
+        cache.get(testId, id -> completedFuture(MISSING_RESOURCE)).toCompletableFuture().join();
+        get(cache, testId);
+        assertEquals(1, retrievals.get(), "Cached a missing resource!");
+    }
+
+    @Test
+    void shouldInvalidateOnlyOneResource() {
+        ResourceCache cache = new ResourceCache(10, 60);
+        get(cache, testId);
+        get(cache, otherId);
+        cache.invalidate(testId);
+        get(cache, testId);
+        get(cache, otherId);
+        assertEquals(3, retrievals.get(), "Wrong resources invalidated!");
+    }
+
+    @Test
+    void shouldNotCacheRetrievalOverlappingInvalidation() {
+        ResourceCache cache = new ResourceCache(10, 60);
+        CompletableFuture<Resource> stale = new CompletableFuture<>();
+        CompletionStage<Resource> retrieval = cache.get(testId, id -> stale);
+        cache.invalidate(testId);
+        stale.complete(mock(Resource.class));
+        retrieval.toCompletableFuture().join();
+        assertSame(resource, get(cache, testId), "Cached a stale resource!");
+    }
+
+    @Test
+    void shouldEvictToBound() {
+        ResourceCache cache = new ResourceCache(1, 60);
+        get(cache, testId);
+        get(cache, otherId);
+        assertEquals(1, cache.evictionCount(), "Wrong eviction count!");
+    }
+
+    @Test
+    void shouldNotCacheWhenDisabled() {
+        ResourceCache cache = new ResourceCache(0, 60);
+        get(cache, testId);
+        get(cache, testId);
+        assertEquals(2, retrievals.get(), "Cached with cache disabled!");
+        assertEquals(0, cache.hitCount(), "Counted hits with cache disabled!");
+    }
+
+    @Test
+    void badSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ResourceCache(-1, 60));
+    }
+}
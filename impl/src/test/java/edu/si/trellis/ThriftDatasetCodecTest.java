@@ -0,0 +1,85 @@
+package edu.si.trellis;
+
+import static edu.si.trellis.ThriftDatasetCodec.thriftDatasetCodec;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+import java.nio.ByteBuffer;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+import org.apache.jena.riot.RiotException;
+import org.junit.jupiter.api.Test;
+
+class ThriftDatasetCodecTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    private final Quad named = rdf.createQuad(iri("g"), iri("s"), iri("p"), iri("o")),
+                    unnamed = rdf.createQuad(null, iri("s1"), iri("p1"), rdf.createLiteral("foo")),
+                    tagged = rdf.createQuad(iri("g2"), iri("s"), iri("p"), rdf.createLiteral("bar", "en")),
+                    typed = rdf.createQuad(iri("g2"), iri("s"), iri("p"), rdf.createLiteral("1", iri("urn:int")));
+
+    @Test
+    void roundTrip() throws Exception {
+        try (Dataset dataset = rdf.createDataset()) {
+            for (Quad q : new Quad[] { named, unnamed, tagged, typed })
+                dataset.add(q);
+            ByteBuffer bytes = thriftDatasetCodec.serialize(dataset, null);
+            try (Dataset result = thriftDatasetCodec.deserialize(bytes, null)) {
+                assertEquals(4, result.size(), "Wrong number of quads!");
+                for (Quad q : new Quad[] { named, unnamed, tagged, typed })
+                    assertTrue(result.contains(q), "Missing quad: " + q);
+            }
+        }
+    }
+
+    @Test
+    void roundTripThroughHex() throws Exception {
+        try (Dataset dataset = rdf.createDataset()) {
+            dataset.add(named);
+            try (Dataset result = thriftDatasetCodec.parse(thriftDatasetCodec.format(dataset))) {
+                assertEquals(1, result.size(), "Wrong number of quads!");
+                assertTrue(result.contains(named), "Missing quad!");
+            }
+        }
+    }
+
+    @Test
+    void badDeserialize() {
+        ByteBuffer garbage = ByteBuffer.wrap("<s> <p> <o> .".getBytes());
+        assertThrows(InvalidTypeException.class, () -> thriftDatasetCodec.deserialize(garbage, null));
+    }
+
+    @Test
+    void badData() {
+        Dataset bad = mock(Dataset.class);
+        when(bad.size()).thenReturn(1L);
+        when(bad.stream()).thenThrow(new RiotException());
+        assertThrows(InvalidTypeException.class, () -> thriftDatasetCodec.serialize(bad, null));
+    }
+
+    @Test
+    void edgeCases() throws Exception {
+        assertNull(thriftDatasetCodec.serialize(null, null));
+        try (Dataset empty = rdf.createDataset()) {
+            assertNull(thriftDatasetCodec.serialize(empty, null));
+        }
+        assertEquals(0, thriftDatasetCodec.deserialize(null, null).size());
+        assertEquals(0, thriftDatasetCodec.parse(null).size());
+        assertEquals("NULL", thriftDatasetCodec.format(null));
+    }
+
+    private static IRI iri(String v) {
+        return rdf.createIRI(v);
+    }
+}
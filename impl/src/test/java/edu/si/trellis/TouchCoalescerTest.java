@@ -0,0 +1,161 @@
+package edu.si.trellis;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.si.trellis.query.rdf.Touch;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TouchCoalescerTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    private static final long WINDOW = 100;
+
+    private final IRI container = rdf.createIRI("urn:container"), other = rdf.createIRI("urn:other");
+
+    private final Instant first = Instant.ofEpochSecond(1000), second = first.plusSeconds(1),
+                    third = first.plusSeconds(2);
+
+    @Mock
+    private Touch mockTouch;
+
+    @Mock
+    private ResourceCache mockCache;
+
+    @Mock
+    private ScheduledExecutorService mockSchedule;
+
+    @Captor
+    private ArgumentCaptor<Runnable> windows;
+
+    private TouchCoalescer coalescer() {
+        return new TouchCoalescer(mockTouch, mockCache, WINDOW, mockSchedule);
+    }
+
+    /**
+     * Closes every window opened so far, as though each had elapsed. Closing a window again writes nothing.
+     */
+    private void closeWindows() {
+        verify(mockSchedule, atLeastOnce()).schedule(windows.capture(), eq(WINDOW), eq(MILLISECONDS));
+        windows.getAllValues().forEach(Runnable::run);
+    }
+
+    @Test
+    void shouldWriteEachTouchWithoutWindow() {
+        when(mockTouch.execute(any(), any())).thenReturn(completedFuture(null));
+        TouchCoalescer coalescer = new TouchCoalescer(mockTouch, mockCache, 0);
+        coalescer.touch(container, first).join();
+        coalescer.touch(container, second).join();
+
+        verify(mockTouch).execute(first, container);
+        verify(mockTouch).execute(second, container);
+        assertEquals(0, coalescer.touchesMerged(), "Merged touches without a window!");
+        assertEquals(2, coalescer.touchesWritten(), "Wrong count of writes!");
+    }
+
+    @Test
+    void shouldWriteLatestOfMergedTouchesBehind() {
+        when(mockTouch.execute(any(), any())).thenReturn(completedFuture(null));
+        TouchCoalescer coalescer = coalescer();
+        assertTrue(coalescer.touch(container, second).isDone(), "Touch waited for its window!");
+        assertTrue(coalescer.touch(container, third).isDone(), "Merged touch waited for its window!");
+        assertTrue(coalescer.touch(container, first).isDone(), "Merged touch waited for its window!");
+        coalescer.touch(other, first);
+        verify(mockTouch, never()).execute(any(), any());
+
+        closeWindows();
+        verify(mockTouch).execute(third, container);
+        verify(mockTouch, never()).execute(second, container);
+        verify(mockTouch, never()).execute(first, container);
+        verify(mockTouch).execute(first, other);
+        verify(mockCache).invalidate(container);
+        verify(mockCache).invalidate(other);
+        assertEquals(4, coalescer.touches(), "Wrong count of touches!");
+        assertEquals(2, coalescer.touchesMerged(), "Wrong count of merged touches!");
+        assertEquals(2, coalescer.touchesWritten(), "Wrong count of writes!");
+    }
+
+    @Test
+    void shouldOpenNewWindowAfterWriting() {
+        when(mockTouch.execute(any(), any())).thenReturn(completedFuture(null));
+        TouchCoalescer coalescer = coalescer();
+        coalescer.touch(container, first);
+        closeWindows();
+        coalescer.touch(container, second);
+
+        verify(mockSchedule, times(2)).schedule(any(Runnable.class), anyLong(), any());
+        assertEquals(0, coalescer.touchesMerged(), "Merged touches across windows!");
+    }
+
+    @Test
+    void shouldCountFailedWrites() {
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new RuntimeException("Expected"));
+        when(mockTouch.execute(third, container)).thenReturn(failure);
+        TouchCoalescer coalescer = coalescer();
+        coalescer.touch(container, first);
+        coalescer.touch(container, third);
+
+        closeWindows();
+        assertEquals(1, coalescer.touchFailures(), "Didn't count failed write!");
+        verify(mockCache).invalidate(container);
+    }
+
+    @Test
+    void shouldWritePendingTouchesWhenStopped() {
+        when(mockTouch.execute(any(), any())).thenReturn(completedFuture(null));
+        TouchCoalescer coalescer = coalescer();
+        coalescer.touch(container, first);
+        coalescer.stop();
+
+        verify(mockTouch).execute(first, container);
+    }
+
+    @Test
+    void shouldWriteDirectlyOnceStopped() {
+        when(mockTouch.execute(any(), any())).thenReturn(completedFuture(null));
+        when(mockSchedule.isShutdown()).thenReturn(true);
+        TouchCoalescer coalescer = coalescer();
+
+        coalescer.touch(container, first).join();
+        verify(mockTouch).execute(first, container);
+        verify(mockSchedule, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    void shouldWriteDirectlyIfStoppedWhileTouching() {
+        when(mockTouch.execute(any(), any())).thenReturn(completedFuture(null));
+        when(mockSchedule.schedule(any(Runnable.class), anyLong(), any()))
+                        .thenThrow(new RejectedExecutionException("Expected"));
+        TouchCoalescer coalescer = coalescer();
+
+        coalescer.touch(container, first);
+        verify(mockTouch).execute(first, container);
+    }
+}
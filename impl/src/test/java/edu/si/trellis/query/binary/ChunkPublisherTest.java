@@ -0,0 +1,164 @@
+package edu.si.trellis.query.binary;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+class ChunkPublisherTest {
+
+    private final Map<Integer, CompletableFuture<ByteBuffer>> fetches = new HashMap<>();
+
+    private final List<Integer> fetched = new ArrayList<>();
+
+    private CompletableFuture<ByteBuffer> fetch(int chunkIndex) {
+        fetched.add(chunkIndex);
+        return fetches.computeIfAbsent(chunkIndex, i -> new CompletableFuture<>());
+    }
+
+    private static ByteBuffer chunk(int chunkIndex) {
+        return ByteBuffer.wrap(new byte[] { (byte) chunkIndex });
+    }
+
+    private ChunkPublisher publisher(int window, Integer... chunkIndexes) {
+        CompletableFuture<Iterator<Integer>> indexes = completedFuture(asList(chunkIndexes).iterator());
+        return new ChunkPublisher(() -> indexes, this::fetch, window);
+    }
+
+    @Test
+    void shouldFetchOnlyWithinDemand() {
+        Recorder recorder = new Recorder();
+        publisher(2, 0, 1, 2, 3).subscribe(recorder);
+        assertEquals(asList(), fetched, "Fetched without demand!");
+
+        recorder.subscription.request(1);
+        assertEquals(asList(0), fetched, "Fetched beyond demand!");
+        fetches.get(0).complete(chunk(0));
+        assertEquals(1, recorder.chunks.size(), "Didn't publish fetched chunk!");
+
+        recorder.subscription.request(10);
+        assertEquals(asList(0, 1, 2, 3), fetched, "Wrong chunks in flight!");
+        assertFalse(recorder.completed, "Completed too soon!");
+    }
+
+    @Test
+    void shouldKeepWindowOfFetchesInFlight() {
+        Recorder recorder = new Recorder();
+        publisher(1, 0, 1, 2, 3).subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(asList(0, 1), fetched, "Wrong chunks in flight!");
+        fetches.get(0).complete(chunk(0));
+        assertEquals(asList(0, 1, 2), fetched, "Didn't refill window!");
+    }
+
+    @Test
+    void shouldPublishInOrder() {
+        Recorder recorder = new Recorder();
+        publisher(2, 0, 1, 2).subscribe(recorder);
+        recorder.subscription.request(3);
+        ByteBuffer first = chunk(0), second = chunk(1), third = chunk(2);
+        fetches.get(2).complete(third);
+        fetches.get(1).complete(second);
+        assertEquals(asList(), recorder.chunks, "Published out of order!");
+
+        fetches.get(0).complete(first);
+        assertEquals(asList(first, second, third), recorder.chunks, "Published wrong chunks!");
+        assertTrue(recorder.completed, "Didn't complete!");
+    }
+
+    @Test
+    void shouldCompleteEmptyBinary() {
+        Recorder recorder = new Recorder();
+        publisher(2).subscribe(recorder);
+        assertTrue(recorder.completed, "Didn't complete!");
+    }
+
+    @Test
+    void missingChunk() {
+        Recorder recorder = new Recorder();
+        publisher(2, 0, 1).subscribe(recorder);
+        recorder.subscription.request(2);
+        NullPointerException e = new NullPointerException("Missing binary chunk!");
+        fetches.get(0).completeExceptionally(e);
+        assertSame(e, recorder.error, "Didn't signal failure!");
+        fetches.get(1).complete(chunk(1));
+        assertEquals(asList(), recorder.chunks, "Published after failure!");
+    }
+
+    @Test
+    void missingBinary() {
+        Recorder recorder = new Recorder();
+        CompletableFuture<Iterator<Integer>> indexes = new CompletableFuture<>();
+        new ChunkPublisher(() -> indexes, this::fetch, 2).subscribe(recorder);
+        IllegalStateException e = new IllegalStateException("Binary not found!");
+        indexes.completeExceptionally(e);
+        assertSame(e, recorder.error, "Didn't signal failure!");
+    }
+
+    @Test
+    void badRequest() {
+        Recorder recorder = new Recorder();
+        publisher(2, 0).subscribe(recorder);
+        recorder.subscription.request(0);
+        assertTrue(recorder.error instanceof IllegalArgumentException, "Accepted non-positive request!");
+        assertEquals(asList(), fetched, "Fetched after bad request!");
+    }
+
+    @Test
+    void shouldStopWhenCancelled() {
+        Recorder recorder = new Recorder();
+        publisher(2, 0, 1, 2, 3).subscribe(recorder);
+        recorder.subscription.request(1);
+        recorder.subscription.cancel();
+        fetches.get(0).complete(chunk(0));
+        recorder.subscription.request(3);
+        assertEquals(asList(0), fetched, "Fetched after cancellation!");
+        assertEquals(asList(), recorder.chunks, "Published after cancellation!");
+        assertFalse(recorder.completed, "Completed after cancellation!");
+    }
+
+    private static class Recorder implements Subscriber<ByteBuffer> {
+
+        private Subscription subscription;
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+
+        private Throwable error;
+
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(ByteBuffer chunk) {
+            chunks.add(chunk);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -3,21 +3,27 @@ package edu.si.trellis.query.binary;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import edu.si.trellis.query.binary.BinaryReadQuery.SequenceInputStream;
+
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 
-class ReadQueryTest {
+class ChunkSequenceInputStreamTest {
+
+    private static final int MANY_CHUNKS = 10_000, CHUNK_SIZE = 16;
 
     @Test
     void shouldConcatStreams() throws IOException {
         try (InputStream one = new ByteArrayInputStream("one".getBytes(UTF_8));
              InputStream two = new ByteArrayInputStream("two".getBytes(UTF_8));
-             SequenceInputStream stream = new SequenceInputStream(one, two)) {
+             ChunkSequenceInputStream stream = chunks(one, two)) {
             String answer = IOUtils.toString(stream, UTF_8);
             assertEquals("onetwo", answer, "Did not correctly concat streams!");
         }
@@ -27,7 +33,7 @@ class ReadQueryTest {
     void shouldSkipAcrossStreams() throws IOException {
         try (InputStream one = new ByteArrayInputStream("onetwothree".getBytes(UTF_8));
              InputStream two = new ByteArrayInputStream("fourfivesix".getBytes(UTF_8));
-             SequenceInputStream stream = new SequenceInputStream(one, two)) {
+             ChunkSequenceInputStream stream = chunks(one, two)) {
             assertEquals(12, stream.skip(12), "Could not skip through first stream!");
             String answer = IOUtils.toString(stream, UTF_8);
             assertEquals("ourfivesix", answer, "Did not correctly stream rest of streams!");
@@ -38,7 +44,7 @@ class ReadQueryTest {
     void shouldReadAcrossStreams() throws IOException {
         try (InputStream one = new ByteArrayInputStream("onetwothree".getBytes(UTF_8));
              InputStream two = new ByteArrayInputStream("fourfivesix".getBytes(UTF_8));
-             SequenceInputStream stream = new SequenceInputStream(one, two);
+             ChunkSequenceInputStream stream = chunks(one, two);
              InputStream answer = new ByteArrayInputStream(("onetwothree" + "fourfivesix").getBytes(UTF_8))) {
             int read, count = 0;
             while ((read = stream.read()) != -1) {
@@ -54,7 +60,7 @@ class ReadQueryTest {
     void shouldFulfillSkipContractEdges() throws IOException {
         try (InputStream one = new ByteArrayInputStream("onetwothree".getBytes(UTF_8));
              InputStream two = new ByteArrayInputStream("fourfivesix".getBytes(UTF_8));
-             SequenceInputStream stream = new SequenceInputStream(one, two)) {
+             ChunkSequenceInputStream stream = chunks(one, two)) {
             assertEquals(0, stream.skip(0));
             assertEquals(0, stream.skip(-1));
         }
@@ -64,7 +70,7 @@ class ReadQueryTest {
     void shouldFulfillReadContractEdges1() throws IOException {
         try (InputStream one = new ByteArrayInputStream("onetwothree".getBytes(UTF_8));
              InputStream two = new ByteArrayInputStream("fourfivesix".getBytes(UTF_8));
-             SequenceInputStream stream = new SequenceInputStream(one, two)) {
+             ChunkSequenceInputStream stream = chunks(one, two)) {
             assertThrows(IndexOutOfBoundsException.class, () -> stream.read(new byte[0], 0, -1));
         }
     }
@@ -73,7 +79,7 @@ class ReadQueryTest {
     void shouldFulfillReadContractEdges2() throws IOException {
         try (InputStream one = new ByteArrayInputStream("onetwothree".getBytes(UTF_8));
              InputStream two = new ByteArrayInputStream("fourfivesix".getBytes(UTF_8));
-             SequenceInputStream stream = new SequenceInputStream(one, two)) {
+             ChunkSequenceInputStream stream = chunks(one, two)) {
             assertThrows(IndexOutOfBoundsException.class, () -> stream.read(new byte[0], -1, 10));
         }
     }
@@ -83,7 +89,7 @@ class ReadQueryTest {
 
         try (InputStream one = new ByteArrayInputStream("onetwothree".getBytes(UTF_8));
              InputStream two = new ByteArrayInputStream("fourfivesix".getBytes(UTF_8));
-             SequenceInputStream stream = new SequenceInputStream(one, two)) {
+             ChunkSequenceInputStream stream = chunks(one, two)) {
             assertThrows(IndexOutOfBoundsException.class, () -> stream.read(new byte[5], 2, 10));
         }
     }
@@ -93,8 +99,39 @@ class ReadQueryTest {
 
         try (InputStream one = new ByteArrayInputStream("onetwothree".getBytes(UTF_8));
              InputStream two = new ByteArrayInputStream("fourfivesix".getBytes(UTF_8));
-             SequenceInputStream stream = new SequenceInputStream(one, two)) {
+             ChunkSequenceInputStream stream = chunks(one, two)) {
             assertEquals(0, stream.read(new byte[5], 2, 0));
         }
     }
+
+    /**
+     * Enough chunks that a stream nesting one level per chunk would overflow the stack.
+     */
+    @Test
+    void shouldStreamManyChunks() throws IOException {
+        try (ChunkSequenceInputStream stream = new ChunkSequenceInputStream(manyChunks())) {
+            byte[] all = IOUtils.toByteArray(stream);
+            assertEquals(MANY_CHUNKS * CHUNK_SIZE, all.length, "Did not read all chunks!");
+            for (int i = 0; i < MANY_CHUNKS; i++)
+                assertEquals((byte) i, all[i * CHUNK_SIZE + CHUNK_SIZE - 1], "Got chunks out of order!");
+        }
+        try (ChunkSequenceInputStream stream = new ChunkSequenceInputStream(manyChunks())) {
+            long toSkip = MANY_CHUNKS * CHUNK_SIZE - 1;
+            assertEquals(toSkip, stream.skip(toSkip), "Could not skip through chunks!");
+            assertEquals((MANY_CHUNKS - 1) & 0xff, stream.read(), "Got wrong byte after skipping!");
+            assertEquals(-1, stream.read(), "Stream was not exhausted after last chunk!");
+        }
+    }
+
+    private static ChunkSequenceInputStream chunks(InputStream... chunks) {
+        return new ChunkSequenceInputStream(Stream.of(chunks).iterator());
+    }
+
+    private static Iterator<InputStream> manyChunks() {
+        return IntStream.range(0, MANY_CHUNKS).<InputStream> mapToObj(i -> {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            Arrays.fill(chunk, (byte) i);
+            return new ByteArrayInputStream(chunk);
+        }).iterator();
+    }
 }
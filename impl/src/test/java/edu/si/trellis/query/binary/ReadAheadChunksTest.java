@@ -0,0 +1,70 @@
+package edu.si.trellis.query.binary;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ReadAheadChunksTest {
+
+    @Mock
+    private InputStream mockInputStream;
+
+    private final List<Integer> fetched = new ArrayList<>();
+
+    private CompletableFuture<InputStream> fetch(int chunkIndex) {
+        fetched.add(chunkIndex);
+        return completedFuture(mockInputStream);
+    }
+
+    @Test
+    void shouldKeepWindowOfFetchesInFlight() {
+        ReadAheadChunks chunks = new ReadAheadChunks(asList(0, 1, 2, 3).iterator(), this::fetch, 2);
+        assertEquals(asList(), fetched, "Fetched too soon!");
+
+        assertSame(mockInputStream, chunks.next(), "Got wrong chunk!");
+        assertEquals(asList(0, 1, 2), fetched, "Wrong chunks in flight!");
+
+        assertSame(mockInputStream, chunks.next(), "Got wrong chunk!");
+        assertEquals(asList(0, 1, 2, 3), fetched, "Wrong chunks in flight!");
+
+        chunks.next();
+        chunks.next();
+        assertFalse(chunks.hasNext(), "Too many chunks!");
+        assertThrows(NoSuchElementException.class, chunks::next);
+        assertEquals(asList(0, 1, 2, 3), fetched, "Fetched too many chunks!");
+    }
+
+    @Test
+    void shouldFetchOnlyWhenReachedWithoutWindow() {
+        ReadAheadChunks chunks = new ReadAheadChunks(asList(0, 1).iterator(), this::fetch, 0);
+        chunks.next();
+        assertEquals(asList(0), fetched, "Fetched ahead without a window!");
+        chunks.next();
+        assertEquals(asList(0, 1), fetched, "Wrong chunks fetched!");
+    }
+
+    @Test
+    void missingChunk() {
+        ReadAheadChunks chunks = new ReadAheadChunks(asList(0).iterator(),
+                        i -> CompletableFuture.<InputStream> supplyAsync(() -> {
+                            throw new NullPointerException("Missing binary chunk!");
+                        }), 2);
+        NullPointerException e = assertThrows(NullPointerException.class, chunks::next);
+        assertEquals("Missing binary chunk!", e.getMessage(), "Wrong exception message!");
+    }
+}
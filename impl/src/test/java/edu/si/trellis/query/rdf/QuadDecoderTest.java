@@ -0,0 +1,73 @@
+package edu.si.trellis.query.rdf;
+
+import static edu.si.trellis.query.rdf.QuadDecoder.nQuads;
+import static edu.si.trellis.query.rdf.QuadDecoder.thrift;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.apache.jena.riot.RDFFormat.RDF_THRIFT;
+import static org.apache.jena.riot.system.StreamRDFWriter.getWriterStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.simple.SimpleRDF;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDF;
+import org.junit.jupiter.api.Test;
+
+class QuadDecoderTest {
+
+    private static final RDF rdf = new SimpleRDF();
+
+    private final List<Quad> expected = Arrays.asList(
+                    rdf.createQuad(iri("g"), iri("s"), iri("p"), iri("o")),
+                    rdf.createQuad(null, iri("s1"), iri("p1"), rdf.createLiteral("foo")),
+                    rdf.createQuad(iri("g2"), iri("s"), iri("p"), rdf.createLiteral("bar", "en")));
+
+    @Test
+    void decodeNQuads() {
+        ByteBuffer bytes = ByteBuffer.wrap("<s> <p> <o> <g> .\n<s1> <p1> \"foo\" .\n<s> <p> \"bar\"@en <g2> ."
+                        .getBytes(UTF_8));
+        assertEquals(expected, nQuads(bytes).collect(toList()), "Wrong quads!");
+    }
+
+    @Test
+    void decodeThrift() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StreamRDF out = getWriterStream(bytes, RDF_THRIFT);
+        out.start();
+        out.quad(jena("g", "s", "p", NodeFactory.createURI("o")));
+        out.triple(new Triple(NodeFactory.createURI("s1"), NodeFactory.createURI("p1"),
+                        NodeFactory.createLiteral("foo")));
+        out.quad(jena("g2", "s", "p", NodeFactory.createLiteral("bar", "en")));
+        out.finish();
+        assertEquals(expected, thrift(ByteBuffer.wrap(bytes.toByteArray())).collect(toList()), "Wrong quads!");
+    }
+
+    @Test
+    void decodeLazily() {
+        byte[] bytes = "<s> <p> <o> <g> .\nSGDF   &&$$$dfshgou;sdfhgoudfhogh".getBytes(UTF_8);
+        // only as much is parsed as is consumed
+        assertEquals(expected.get(0), nQuads(ByteBuffer.wrap(bytes)).findFirst().get(), "Wrong first quad!");
+        assertThrows(RiotException.class, () -> nQuads(ByteBuffer.wrap(bytes)).count(), "Parsed bad N-Quads!");
+    }
+
+    private static org.apache.jena.sparql.core.Quad jena(String g, String s, String p,
+                    org.apache.jena.graph.Node o) {
+        return new org.apache.jena.sparql.core.Quad(NodeFactory.createURI(g), NodeFactory.createURI(s),
+                        NodeFactory.createURI(p), o);
+    }
+
+    private static IRI iri(String v) {
+        return rdf.createIRI(v);
+    }
+}
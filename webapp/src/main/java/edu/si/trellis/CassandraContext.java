@@ -4,7 +4,10 @@ import static com.datastax.driver.core.TypeCodec.bigint;
 import static edu.si.trellis.DatasetCodec.datasetCodec;
 import static edu.si.trellis.IRICodec.iriCodec;
 import static edu.si.trellis.InputStreamCodec.inputStreamCodec;
+import static edu.si.trellis.ThriftDatasetCodec.thriftDatasetCodec;
+import static java.lang.Boolean.parseBoolean;
 import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import com.datastax.driver.core.*;
@@ -49,6 +52,105 @@ public class CassandraContext {
             "CASSANDRA_MAX_CHUNK_SIZE" }, defaultValue = DefaultChunkSize.value)
     private String defaultChunkSize;
 
+    @Inject
+    @Config(key = "cassandra.chunkSizeLowerBound", alternateKeys = {
+            "CASSANDRA_CHUNK_SIZE_LOWER_BOUND" }, defaultValue = MinChunkSize.value)
+    private String minChunkSize;
+
+    @Inject
+    @Config(key = "cassandra.chunkSizeUpperBound", alternateKeys = {
+            "CASSANDRA_CHUNK_SIZE_UPPER_BOUND" }, defaultValue = MaxChunkSize.value)
+    private String maxChunkSize;
+
+    @Inject
+    @Config(key = "cassandra.binaryReadAhead", alternateKeys = {
+            "CASSANDRA_BINARY_READ_AHEAD" }, defaultValue = BinaryReadAhead.value)
+    private String binaryReadAhead;
+
+    @Inject
+    @Config(key = "cassandra.binaryWriteAhead", alternateKeys = {
+            "CASSANDRA_BINARY_WRITE_AHEAD" }, defaultValue = BinaryWriteAhead.value)
+    private String binaryWriteAhead;
+
+    @Inject
+    @Config(key = "cassandra.binaryDeduplication", alternateKeys = {
+            "CASSANDRA_BINARY_DEDUPLICATION" }, defaultValue = BinaryDeduplication.value)
+    private String binaryDeduplication;
+
+    @Inject
+    @Config(key = "cassandra.binaryCompression", alternateKeys = {
+            "CASSANDRA_BINARY_COMPRESSION" }, defaultValue = BinaryCompression.value)
+    private String binaryCompression;
+
+    @Inject
+    @Config(key = "cassandra.binaryCacheSize", alternateKeys = {
+            "CASSANDRA_BINARY_CACHE_SIZE" }, defaultValue = BinaryCacheSize.value)
+    private String binaryCacheSize;
+
+    @Inject
+    @Config(key = "cassandra.resourceCacheSize", alternateKeys = {
+            "CASSANDRA_RESOURCE_CACHE_SIZE" }, defaultValue = ResourceCacheSize.value)
+    private String resourceCacheSize;
+
+    @Inject
+    @Config(key = "cassandra.resourceCacheExpiry", alternateKeys = {
+            "CASSANDRA_RESOURCE_CACHE_EXPIRY" }, defaultValue = ResourceCacheExpiry.value)
+    private String resourceCacheExpiry;
+
+    @Inject
+    @Config(key = "cassandra.containmentFetchSize", alternateKeys = {
+            "CASSANDRA_CONTAINMENT_FETCH_SIZE" }, defaultValue = ContainmentFetchSize.value)
+    private String containmentFetchSize;
+
+    @Inject
+    @Config(key = "cassandra.immutableBucketSize", alternateKeys = {
+            "CASSANDRA_IMMUTABLE_BUCKET_SIZE" }, defaultValue = ImmutableBucketSize.value)
+    private String immutableBucketSize;
+
+    @Inject
+    @Config(key = "cassandra.immutableFetchSize", alternateKeys = {
+            "CASSANDRA_IMMUTABLE_FETCH_SIZE" }, defaultValue = ImmutableFetchSize.value)
+    private String immutableFetchSize;
+
+    @Inject
+    @Config(key = "cassandra.backfillContainment", alternateKeys = {
+            "CASSANDRA_BACKFILL_CONTAINMENT" }, defaultValue = BackfillContainment.value)
+    private String backfillContainment;
+
+    @Inject
+    @Config(key = "cassandra.touchWindow", alternateKeys = {
+            "CASSANDRA_TOUCH_WINDOW" }, defaultValue = TouchWindow.value)
+    private String touchWindow;
+
+    @Inject
+    @Config(key = "cassandra.binaryPartitionSize", alternateKeys = {
+            "CASSANDRA_BINARY_PARTITION_SIZE" }, defaultValue = BinaryPartitionSize.value)
+    private String binaryPartitionSize;
+
+    @Inject
+    @Config(key = "cassandra.binarySweepInterval", alternateKeys = {
+            "CASSANDRA_BINARY_SWEEP_INTERVAL" }, defaultValue = BinarySweepInterval.value)
+    private String binarySweepInterval;
+
+    @Inject
+    @Config(key = "cassandra.binarySweepGracePeriod", alternateKeys = {
+            "CASSANDRA_BINARY_SWEEP_GRACE_PERIOD" }, defaultValue = BinarySweepGracePeriod.value)
+    private String binarySweepGracePeriod;
+
+    @Inject
+    @Config(key = "cassandra.binarySweepParallelism", alternateKeys = {
+            "CASSANDRA_BINARY_SWEEP_PARALLELISM" }, defaultValue = BinarySweepParallelism.value)
+    private String binarySweepParallelism;
+
+    @Inject
+    @Config(key = "cassandra.binarySweepRate", alternateKeys = {
+            "CASSANDRA_BINARY_SWEEP_RATE" }, defaultValue = BinarySweepRate.value)
+    private String binarySweepRate;
+
+    @Inject
+    @Config(key = "cassandra.rdfThrift", alternateKeys = { "CASSANDRA_RDF_THRIFT" }, defaultValue = RdfThrift.value)
+    private String rdfThrift;
+
     @Inject
     @Config(key = "cassandra.binaryReadConsistency", alternateKeys = { "CASSANDRA_BINARY_READ_CONSISTENCY" }, defaultValue = "ONE")
     private ConsistencyLevel binaryReadConsistency;
@@ -74,6 +176,186 @@ public class CassandraContext {
         return parseInt(defaultChunkSize);
     }
 
+    /**
+     * @return the smallest size of chunk a {@link CassandraBinaryService} chooses for a binary of more than one chunk
+     */
+    @Produces
+    @MinChunkSize
+    public int minChunkSize() {
+        return parseInt(minChunkSize);
+    }
+
+    /**
+     * @return the largest size of chunk a {@link CassandraBinaryService} chooses for a binary
+     */
+    @Produces
+    @MaxChunkSize
+    public int maxChunkSize() {
+        return parseInt(maxChunkSize);
+    }
+
+    /**
+     * @return the number of chunks a {@link CassandraBinaryService} fetches ahead of a reader
+     */
+    @Produces
+    @BinaryReadAhead
+    public int binaryReadAhead() {
+        return parseInt(binaryReadAhead);
+    }
+
+    /**
+     * @return the number of chunks a {@link CassandraBinaryService} may have in flight at once while recording a binary
+     */
+    @Produces
+    @BinaryWriteAhead
+    public int binaryWriteAhead() {
+        return parseInt(binaryWriteAhead);
+    }
+
+    /**
+     * @return whether a {@link CassandraBinaryService} records binaries as lists of shared, content-addressed chunks
+     */
+    @Produces
+    @BinaryDeduplication
+    public boolean binaryDeduplication() {
+        return parseBoolean(binaryDeduplication);
+    }
+
+    /**
+     * @return whether a {@link CassandraBinaryService} compresses chunks of binaries
+     */
+    @Produces
+    @BinaryCompression
+    public boolean binaryCompression() {
+        return parseBoolean(binaryCompression);
+    }
+
+    /**
+     * @return the most bytes of binary chunks for a {@link ChunkCache} to hold
+     */
+    @Produces
+    @BinaryCacheSize
+    public long binaryCacheSize() {
+        return parseLong(binaryCacheSize);
+    }
+
+    /**
+     * @return the most resources for a {@link ResourceCache} to hold
+     */
+    @Produces
+    @ResourceCacheSize
+    public long resourceCacheSize() {
+        return parseLong(resourceCacheSize);
+    }
+
+    /**
+     * @return the seconds for which a {@link ResourceCache} holds a resource
+     */
+    @Produces
+    @ResourceCacheExpiry
+    public long resourceCacheExpiry() {
+        return parseLong(resourceCacheExpiry);
+    }
+
+    /**
+     * @return how many contained resources to fetch in each page while listing a container
+     */
+    @Produces
+    @ContainmentFetchSize
+    public int containmentFetchSize() {
+        return parseInt(containmentFetchSize);
+    }
+
+    /**
+     * @return the seconds of immutable data about a resource to record in each partition
+     */
+    @Produces
+    @ImmutableBucketSize
+    public long immutableBucketSize() {
+        return parseLong(immutableBucketSize);
+    }
+
+    /**
+     * @return how many rows of immutable data to fetch in each page while retrieving a resource
+     */
+    @Produces
+    @ImmutableFetchSize
+    public int immutableFetchSize() {
+        return parseInt(immutableFetchSize);
+    }
+
+    /**
+     * @return whether to backfill the containment table at startup
+     */
+    @Produces
+    @BackfillContainment
+    public boolean backfillContainment() {
+        return parseBoolean(backfillContainment);
+    }
+
+    /**
+     * @return the milliseconds during which to merge touches of a resource into one write
+     */
+    @Produces
+    @TouchWindow
+    public long touchWindow() {
+        return parseLong(touchWindow);
+    }
+
+    /**
+     * @return the most bytes of chunks of a binary to store in one partition
+     */
+    @Produces
+    @BinaryPartitionSize
+    public long binaryPartitionSize() {
+        return parseLong(binaryPartitionSize);
+    }
+
+    /**
+     * @return the seconds between sweeps for orphaned binaries
+     */
+    @Produces
+    @BinarySweepInterval
+    public long binarySweepInterval() {
+        return parseLong(binarySweepInterval);
+    }
+
+    /**
+     * @return the seconds after a binary is written during which it is not swept
+     */
+    @Produces
+    @BinarySweepGracePeriod
+    public long binarySweepGracePeriod() {
+        return parseLong(binarySweepGracePeriod);
+    }
+
+    /**
+     * @return how many token ranges to scan at once while sweeping for orphaned binaries
+     */
+    @Produces
+    @BinarySweepParallelism
+    public int binarySweepParallelism() {
+        return parseInt(binarySweepParallelism);
+    }
+
+    /**
+     * @return the most orphaned binaries to purge per second
+     */
+    @Produces
+    @BinarySweepRate
+    public int binarySweepRate() {
+        return parseInt(binarySweepRate);
+    }
+
+    /**
+     * @return whether to write the RDF of resources as RDF Thrift
+     */
+    @Produces
+    @RdfThrift
+    public boolean rdfThrift() {
+        return parseBoolean(rdfThrift);
+    }
+
     /**
      * @return the read-consistency to use querying Cassandra binary data
      */
@@ -122,7 +404,7 @@ public class CassandraContext {
     private static final int POLL_TIMEOUT = 1000;
 
     private static final TypeCodec<?>[] STANDARD_CODECS = new TypeCodec<?>[] { SimpleTimestampCodec.instance,
-            inputStreamCodec, iriCodec, datasetCodec, bigint(), InstantCodec.instance };
+            inputStreamCodec, iriCodec, datasetCodec, thriftDatasetCodec, bigint(), InstantCodec.instance };
 
     /**
      * Connect to Cassandra, lazily.
@@ -31,6 +31,20 @@ public class CassandraServiceBundler implements ServiceBundler {
     @Inject
     private CassandraBinaryService binaryService;
 
+    /**
+     * Sweeps in the background once created, if so configured.
+     */
+    @Inject
+    @SuppressWarnings("unused")
+    private OrphanedBinarySweeper binarySweeper;
+
+    /**
+     * Backfills containment in the background once created, if so configured.
+     */
+    @Inject
+    @SuppressWarnings("unused")
+    private ContainmentBackfill containmentBackfill;
+
     @Inject
     private AgentService agentService;
 